@@ -0,0 +1,21 @@
+package com.wu.demo.configuration;
+
+import com.wu.demo.interceptor.TimingInterceptor;
+import com.wu.spring.annotation.ioc.Component;
+import com.wu.spring.mvc.InterceptorConfigurer;
+import com.wu.spring.mvc.InterceptorRegistry;
+
+/**
+ * @author Cactus
+ * 拦截器配置
+ * 用来测试InterceptorConfigurer
+ */
+@Component
+public class WebConfig implements InterceptorConfigurer {
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new TimingInterceptor())
+				.addPathPatterns("/user/**")
+				.excludePathPatterns("/user/logout");
+	}
+}
@@ -6,11 +6,16 @@ import com.wu.demo.model.UserRequest;
 import com.wu.demo.service.UserService;
 import com.wu.spring.annotation.ioc.Autowired;
 import com.wu.spring.annotation.mvc.*;
+import com.wu.spring.constants.LimitAlgorithm;
+import com.wu.spring.constants.RateLimitKey;
 import com.wu.spring.constants.RequestMethod;
 import com.wu.spring.mvc.ModelAndView;
 
+import javax.servlet.http.HttpServletResponse;
+
 @Controller
 @RequestMapping(value = "/user")
+@ConcurrencyLimit(limit = 20, algorithm = LimitAlgorithm.GRADIENT, maxLimit = 100)
 public class TestController {
     @Autowired
     UserService userService;
@@ -32,6 +37,7 @@ public class TestController {
     }
 
     @ResponseBody
+    @RateLimit(permitsPerSecond = 5, burst = 10, key = RateLimitKey.IP)
     @RequestMapping(value = "/login",method = RequestMethod.POST)
     public ResponseEntity login(@RequestBody UserRequest userRequest){
         try {
@@ -77,8 +83,9 @@ public class TestController {
     }
 
     @ResponseBody
+    @Cacheable(ttl = 30, key = "id")
     @RequestMapping(value = "/findUser/{id}",method = RequestMethod.GET)
-    public ResponseEntity loginout(@PathVariable("id") Integer id){
+    public ResponseEntity loginout(@PathVariable("id") Integer id, HttpServletResponse response){
         try {
             User user= userService.findUser(id);
             System.out.println("测试循环依赖，如果相等则解决: "+userService+" "+userService.userservice2.userService);
@@ -89,6 +96,8 @@ public class TestController {
             // TODO: handle exception
             e.printStackTrace();
         }
+        // 非200的响应不会被@Cacheable缓存，避免用户创建后仍返回缓存的失败结果
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
         return ResponseEntity.fail("未找到id="+id+"的用户");
     }
 }
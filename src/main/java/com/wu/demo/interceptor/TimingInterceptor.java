@@ -0,0 +1,28 @@
+package com.wu.demo.interceptor;
+
+import com.wu.spring.mvc.Handler;
+import com.wu.spring.mvc.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @author Cactus
+ * 用来测试HandlerInterceptor
+ * 在响应头X-Handle-Time中返回handler的执行微秒数
+ */
+public class TimingInterceptor implements HandlerInterceptor {
+	private static final String START_ATTRIBUTE = TimingInterceptor.class.getName() + ".START";
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Handler handler) {
+		request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Handler handler, Object result) {
+		long start = (Long) request.getAttribute(START_ATTRIBUTE);
+		response.setHeader("X-Handle-Time", String.valueOf((System.nanoTime() - start) / 1000));
+	}
+}
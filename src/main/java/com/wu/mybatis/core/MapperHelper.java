@@ -7,6 +7,8 @@ import com.wu.spring.ioc.BeanDefinition;
 import com.wu.spring.ioc.BeanDefinitionRegistry;
 import com.wu.spring.ioc.ClassSetHelper;
 import com.wu.spring.ioc.GenericBeanDefinition;
+import com.wu.spring.log.Logger;
+import com.wu.spring.metrics.StartupTrace;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
@@ -24,13 +26,16 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author Cactus
  */
 public class MapperHelper {
+    private static final Logger LOGGER = Logger.getLogger(MapperHelper.class);
     private static MapperHelper mapperHelper = null;
 
     private static Map<Method,MethodDetails> cacheMethodDetails = new ConcurrentHashMap<>();
 
     private static Set<Class<?>> mapperClassSet = null;
     static {
+        long start = System.nanoTime();
         MapperHelper.init();
+        StartupTrace.record("mapper_init", start);
     }
 
     private MapperHelper(){
@@ -77,7 +82,7 @@ public class MapperHelper {
         mapperClassSet = ClassSetHelper.getClassSetByAnnotation(Mapper.class);
         // 如果没有mapper标注的类则返回。
         if(mapperClassSet == null || mapperClassSet.isEmpty()){
-            System.out.println("Can not find Class with annotation of Mapper");
+            LOGGER.warn("Can not find Class with annotation of Mapper");
             return;
         }
         for (Class<?> aClass : mapperClassSet) {
@@ -111,7 +116,7 @@ public class MapperHelper {
                 beanDefinition.setIsProxy(true);
                 beanDefinition.setProxy(cgLibMapperProxy);
                 BeanDefinitionRegistry.registryBeanDefinition(cls.getName(), beanDefinition);
-                System.out.println("MapperHelper 注册 "+cls.getName());
+                LOGGER.info("MapperHelper 注册 {}", cls.getName());
             }
         }
     }
@@ -1,5 +1,7 @@
 package com.wu.mybatis.datasource;
 
+import com.wu.spring.log.Logger;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -8,6 +10,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class PoolDataSource implements DataSource{
+    private static final Logger LOGGER = Logger.getLogger(PoolDataSource.class);
 	//数据源连接信息
 	private String driverClassName;
     private String url;
@@ -69,7 +72,7 @@ public class PoolDataSource implements DataSource{
         	//阻塞获取连接，如果指定时间内内有其他连接释放
             connection = idleConnectPool.poll(waitTimeMill, TimeUnit.MILLISECONDS);
             if (connection == null) {
-                System.out.println("等待超时");
+                LOGGER.warn("等待超时");
                 throw new RuntimeException("等待连接超时");
             }
         } catch (InterruptedException e) {
@@ -7,6 +7,7 @@ import com.wu.mybatis.handler.ResultSetHandler;
 import com.wu.mybatis.transaction.TransactionFactory;
 import com.wu.mybatis.transaction.TransactionManager;
 import com.wu.mybatis.transaction.TransactionStatus;
+import com.wu.spring.log.Logger;
 
 import java.lang.reflect.Method;
 import java.sql.Connection;
@@ -16,6 +17,7 @@ import java.sql.SQLException;
 import java.util.List;
 
 public class SimpleExecutor implements Executor {
+    private static final Logger LOGGER = Logger.getLogger(SimpleExecutor.class);
     public TransactionManager transactionManager;
 
     public SqlResultCache sqlResultCache;
@@ -52,7 +54,7 @@ public class SimpleExecutor implements Executor {
         // 首先得到缓存key.
         String cacheKey = generateCacheKey(method, args);
         if (sqlResultCache != null && sqlResultCache.getCache(cacheKey) != null) {
-            System.out.println("this is cache");
+            LOGGER.debug("this is cache");
             // 由于一个key可能查出多个结果，因此返回list类型。
             return (List<E>) sqlResultCache.getCache(cacheKey);
         }
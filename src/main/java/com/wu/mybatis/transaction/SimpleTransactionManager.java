@@ -9,6 +9,7 @@ import java.util.Stack;
 
 public class SimpleTransactionManager implements TransactionManager {
     //ThreadLocal对象保证每个线程对应唯一的数据库连接
+    //虚拟线程下每个请求都是一个新线程，因此连接释放后必须及时remove，不能依赖线程复用
     private ThreadLocal<Connection> connectionThreadLocal = new ThreadLocal<>();
     //上级事务连接缓存，使用栈可以保证多级事务的缓存，可以用来延缓当前事务。
     private ThreadLocal<Stack<Connection>> delayThreadLocal = new ThreadLocal<>();
@@ -234,11 +235,11 @@ public class SimpleTransactionManager implements TransactionManager {
             dataSource.removeConnection(connection);
             connectionThreadLocal.remove();
             //恢复上级事务连接
-            connectionThreadLocal.set(delayThreadLocal.get().pop());
+            resumeDelayedConnection();
         }
         //如果当前存在上级事务，且传播行为为PROPAGATION_NOT_SUPPORTED，则直接将上级事务连接恢复到connectionThreadLocal中
         else if (status.isTrans && status.propagationLevel == PropagationLevelConstant.PROPAGATION_NOT_SUPPORTED) {
-            connectionThreadLocal.set(delayThreadLocal.get().pop());
+            resumeDelayedConnection();
         }
         //
         else if(status.isTrans && status.propagationLevel == PropagationLevelConstant.PROPAGATION_NESTED){
@@ -247,6 +248,17 @@ public class SimpleTransactionManager implements TransactionManager {
 
     }
 
+    /**
+     * 恢复上级事务连接，栈为空时清除线程本地变量
+     */
+    private void resumeDelayedConnection() {
+        Stack<Connection> stack = delayThreadLocal.get();
+        connectionThreadLocal.set(stack.pop());
+        if (stack.isEmpty()) {
+            delayThreadLocal.remove();
+        }
+    }
+
     /**
      * 设置事务隔离级别
      */
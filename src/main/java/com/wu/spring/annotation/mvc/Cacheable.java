@@ -0,0 +1,30 @@
+package com.wu.spring.annotation.mvc;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * 缓存GET请求的响应内容，命中时直接返回缓存的字节，不再调用handler和序列化
+ * @author Cactus
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface Cacheable {
+	/**
+	 * 缓存有效秒数
+	 */
+	long ttl() default 60;
+
+	/**
+	 * 该handler最多缓存的响应个数，超出后淘汰最近最少使用的
+	 */
+	int maxSize() default 1000;
+
+	/**
+	 * 组成缓存key的请求参数或路径变量名，为空时使用完整的请求路径和查询字符串
+	 */
+	String[] key() default {};
+}
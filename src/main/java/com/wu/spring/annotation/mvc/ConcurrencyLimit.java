@@ -0,0 +1,44 @@
+package com.wu.spring.annotation.mvc;
+
+import com.wu.spring.constants.LimitAlgorithm;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * 限制同时处理的请求数，达到上限的请求直接返回503，不排队等待。
+ * 注解在控制器上时该控制器的所有路由共用一个上限，注解在方法上时该路由单独使用一个上限
+ * @author Cactus
+ */
+@Retention(RUNTIME)
+@Target({TYPE, METHOD})
+public @interface ConcurrencyLimit {
+	/**
+	 * 固定方式下的上限，自适应方式下的初始上限
+	 */
+	int limit() default 50;
+
+	/**
+	 * 上限的调整方式
+	 */
+	LimitAlgorithm algorithm() default LimitAlgorithm.FIXED;
+
+	/**
+	 * 自适应方式下上限的最小值
+	 */
+	int minLimit() default 1;
+
+	/**
+	 * 自适应方式下上限的最大值
+	 */
+	int maxLimit() default 200;
+
+	/**
+	 * AIMD方式下，耗时超过该毫秒数的请求视为过载
+	 */
+	long latencyThresholdMillis() default 1000;
+}
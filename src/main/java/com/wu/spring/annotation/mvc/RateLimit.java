@@ -0,0 +1,42 @@
+package com.wu.spring.annotation.mvc;
+
+import com.wu.spring.constants.RateLimitKey;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * 按令牌桶限流，超出速率的请求直接返回429，不再调用拦截器和handler
+ * @author Cactus
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface RateLimit {
+	/**
+	 * 每秒补充的令牌数，即长期允许的请求速率，必须为正数，否则映射handler时报错
+	 */
+	double permitsPerSecond();
+
+	/**
+	 * 桶的容量，即允许的突发请求数，小于1时取每秒令牌数（至少为1）
+	 */
+	int burst() default 0;
+
+	/**
+	 * 按哪个维度区分客户端，每个客户端各有一个令牌桶
+	 */
+	RateLimitKey key() default RateLimitKey.ROUTE;
+
+	/**
+	 * key为HEADER或PARAM时的请求头名或参数名，请求中没有该值的客户端共用一个令牌桶
+	 */
+	String keyName() default "";
+
+	/**
+	 * 最多保留的客户端令牌桶个数，超出后新的客户端共用一个令牌桶
+	 */
+	int maxKeys() default 10000;
+}
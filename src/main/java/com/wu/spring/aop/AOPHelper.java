@@ -6,6 +6,8 @@ import com.wu.spring.ioc.BeanDefinition;
 import com.wu.spring.ioc.BeanDefinitionRegistry;
 import com.wu.spring.ioc.ClassSetHelper;
 import com.wu.spring.ioc.GenericBeanDefinition;
+import com.wu.spring.log.Logger;
+import com.wu.spring.metrics.StartupTrace;
 import org.apache.commons.collections4.map.HashedMap;
 
 import java.lang.reflect.Method;
@@ -16,6 +18,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * 将所需要增强的方法进行注册
  */
 public class AOPHelper {
+    private static final Logger LOGGER = Logger.getLogger(AOPHelper.class);
     // aop助手为单例模式。
     private static volatile AOPHelper aopHelper = null;
     // 需要代理的目标类和目标方法的映射
@@ -26,8 +29,10 @@ public class AOPHelper {
      * 初始化aop助手
      */
     static {
+        long start = System.nanoTime();
         try {
             AOPHelper.init();
+            StartupTrace.record("aop_init", start);
         } catch (Exception e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
@@ -102,7 +107,7 @@ public class AOPHelper {
                 beanDefinition.setIsProxy(true);
                 beanDefinition.setProxy(cgLibProxy);
                 BeanDefinitionRegistry.registryBeanDefinition(cls.getName(), beanDefinition);
-                System.out.println("AOPHelper 注册 "+cls.getName());
+                LOGGER.info("AOPHelper 注册 {}", cls.getName());
             }
             //DefaultBeanFactory.getInstance().refresh();
         } catch (Exception e) {
@@ -6,6 +6,7 @@ import com.wu.mybatis.transaction.TransactionStatus;
 import com.wu.spring.annotation.aop.Transactional;
 import com.wu.spring.common.MyProxy;
 import com.wu.spring.constants.AdviceTypeConstant;
+import com.wu.spring.log.Logger;
 import net.sf.cglib.proxy.Enhancer;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
@@ -17,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 
 public class CGLibProxy implements MethodInterceptor, MyProxy {
+    private static final Logger LOGGER = Logger.getLogger(CGLibProxy.class);
     //目标代理方法和增强列表的映射
     Map<Method, Map<String, List<Advice>>> methodAdvicesMap = null;
     // 事务管理器
@@ -65,7 +67,7 @@ public class CGLibProxy implements MethodInterceptor, MyProxy {
             // 前置增强
             invokeAdvice(method, advices, AdviceTypeConstant.BEFORE);
             // 环绕增强
-            System.out.println("当前事务是否存在:" + status.isTrans);
+            LOGGER.debug("当前事务是否存在: {}", status.isTrans);
             if (isAdviceNeed(method) && advices != null && advices.containsKey(AdviceTypeConstant.AROUND)) {
                 List<Advice> aroundAdvices = advices.get(AdviceTypeConstant.AROUND);
                 if (aroundAdvices != null && !aroundAdvices.isEmpty()) {
@@ -151,7 +153,10 @@ public class CGLibProxy implements MethodInterceptor, MyProxy {
      */
     private void closeTransaction(TransactionStatus status) throws SQLException {
         if(isTransactionNeed(status)) {
-            System.out.println("关闭事务，事务Id="+transactionManager.getTransactionId());
+            // 获取事务Id需要访问连接，只在开启DEBUG时获取
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("关闭事务，事务Id={}", transactionManager.getTransactionId());
+            }
             transactionManager.closeTransaction(status);
         }
     }
@@ -162,7 +167,9 @@ public class CGLibProxy implements MethodInterceptor, MyProxy {
     private void rollbackTransaction(TransactionStatus status) throws SQLException {
         if(isTransactionNeed(status)) {
             transactionManager.rollback();
-            System.out.println("回滚事务，事务Id="+transactionManager.getTransactionId());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("回滚事务，事务Id={}", transactionManager.getTransactionId());
+            }
         }
     }
 
@@ -172,7 +179,9 @@ public class CGLibProxy implements MethodInterceptor, MyProxy {
     private void commitTransaction(TransactionStatus status) throws SQLException {
         if(isTransactionNeed(status)) {
             transactionManager.commit(status);
-            System.out.println("提交事务，事务Id="+transactionManager.getTransactionId());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("提交事务，事务Id={}", transactionManager.getTransactionId());
+            }
         }
     }
 
@@ -182,7 +191,9 @@ public class CGLibProxy implements MethodInterceptor, MyProxy {
     private void beginTransaction(TransactionStatus status) throws SQLException {
         if (isTransactionNeed(status)) {
             transactionManager.beginTransaction(status);
-            System.out.println("开启事务，事务Id=" + transactionManager.getTransactionId());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("开启事务，事务Id={}", transactionManager.getTransactionId());
+            }
         }
     }
 
@@ -1,5 +1,6 @@
 package com.wu.spring.aop;
 
+import com.wu.spring.log.Logger;
 import net.sf.cglib.proxy.MethodProxy;
 
 import java.lang.reflect.Method;
@@ -10,6 +11,7 @@ import java.lang.reflect.Method;
  *
  */
 public class JoinPoint {
+	private static final Logger LOGGER = Logger.getLogger(JoinPoint.class);
 	private Object target=null;
 	private Method method=null;
 	//目标方法的代理
@@ -47,7 +49,7 @@ public class JoinPoint {
 		Object result;
 		if(methodProxy!=null) {
 			result=methodProxy.invokeSuper(target, this.args);
-			System.out.println("正在调用registerUser");
+			LOGGER.debug("调用被增强的方法: {}", method);
 		}
 		else {
 			if(this.args==null) {
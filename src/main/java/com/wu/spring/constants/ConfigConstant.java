@@ -9,6 +9,27 @@ public class ConfigConstant {
     //配置文件的名称
     public static final String CONFIG_FILE = "application.properties";
 
+    //服务端口号
+    public static final String SERVER_PORT = "myspring.server.port";
+    //请求执行方式 platform/virtual
+    public static final String SERVER_EXECUTOR = "myspring.server.executor";
+    //虚拟线程名前缀
+    public static final String SERVER_VIRTUAL_THREAD_PREFIX = "myspring.server.virtual.thread_prefix";
+    //连接器协议 nio/nio2
+    public static final String SERVER_PROTOCOL = "myspring.server.protocol";
+    //Tomcat主机名
+    public static final String SERVER_HOSTNAME = "myspring.server.hostname";
+    //绑定的ip地址
+    public static final String SERVER_ADDRESS = "myspring.server.address";
+    //线程池
+    public static final String SERVER_MAX_THREADS = "myspring.server.max_threads";
+    public static final String SERVER_MIN_SPARE_THREADS = "myspring.server.min_spare_threads";
+    //连接
+    public static final String SERVER_ACCEPT_COUNT = "myspring.server.accept_count";
+    public static final String SERVER_MAX_CONNECTIONS = "myspring.server.max_connections";
+    public static final String SERVER_KEEP_ALIVE_TIMEOUT = "myspring.server.keep_alive_timeout";
+    public static final String SERVER_MAX_KEEP_ALIVE_REQUESTS = "myspring.server.max_keep_alive_requests";
+
     //数据源
     public static final String JDBC_DRIVER = "myspring.datasource.jdbc.driver";
     public static final String JDBC_URL = "myspring.datasource.jdbc.url";
@@ -21,8 +42,57 @@ public class ConfigConstant {
     public static final String POOL_WAITTIMEMILL = "myspring.datasource.pool.waitTimeMill";
     //java源码地址
     public static final String APP_BASE_PACKAGE = "myspring.app.base_package";
+    //是否优先使用编译期生成的组件索引
+    public static final String APP_COMPONENT_INDEX = "myspring.app.component_index";
+    //扫描时是否先解析class文件，只加载组件类及其子类和实现类
+    public static final String APP_SCAN_METADATA = "myspring.app.scan_metadata";
+    //刷新容器时并行创建bean的线程数
+    public static final String APP_REFRESH_PARALLELISM = "myspring.app.refresh_parallelism";
     //jsp页面路径
     public static final String APP_JSP_PATH = "myspring.app.jsp_path";
     //静态资源路径
     public static final String APP_ASSET_PATH = "myspring.app.asset_path";
+    //静态资源缓存的总字节数
+    public static final String APP_ASSET_CACHE_SIZE = "myspring.app.asset_cache_size";
+    //单个静态资源不超过该字节数时才放入缓存
+    public static final String APP_ASSET_CACHE_FILE_SIZE = "myspring.app.asset_cache_file_size";
+    //静态资源Cache-Control的max-age秒数
+    public static final String APP_ASSET_MAX_AGE = "myspring.app.asset_max_age";
+
+    //控制器方法调用方式 methodHandle/reflection
+    public static final String MVC_INVOKER = "myspring.mvc.invoker";
+    //请求体最大字节数
+    public static final String MVC_MAX_BODY_SIZE = "myspring.mvc.max_body_size";
+    //响应缓冲区字节数
+    public static final String MVC_RESPONSE_BUFFER_SIZE = "myspring.mvc.response_buffer_size";
+    //异步请求超时毫秒数
+    public static final String MVC_ASYNC_TIMEOUT = "myspring.mvc.async.timeout";
+    //执行Callable返回值的线程数，0表示CPU核数的2倍
+    public static final String MVC_ASYNC_THREADS = "myspring.mvc.async.threads";
+    //Callable排队的最大个数
+    public static final String MVC_ASYNC_QUEUE_SIZE = "myspring.mvc.async.queue_size";
+    //超过响应缓冲区的JSON和Freemarker响应是否通过WriteListener非阻塞写出
+    public static final String MVC_NON_BLOCKING_WRITE = "myspring.mvc.non_blocking_write";
+    //非阻塞写出时最多暂存的分块个数
+    public static final String MVC_NON_BLOCKING_MAX_CHUNKS = "myspring.mvc.non_blocking_write.max_chunks";
+    //是否对JSON和页面响应进行gzip压缩
+    public static final String MVC_COMPRESSION = "myspring.mvc.compression";
+    //进行压缩的最小字节数
+    public static final String MVC_COMPRESSION_MIN_SIZE = "myspring.mvc.compression.min_size";
+    //启动时是否预先解析全部模板
+    public static final String MVC_TEMPLATE_WARM_UP = "myspring.mvc.template.warm_up";
+    //模板缓存的最大个数
+    public static final String MVC_TEMPLATE_CACHE_SIZE = "myspring.mvc.template.cache_size";
+    //检查模板文件是否修改的间隔毫秒数，-1表示不检查
+    public static final String MVC_TEMPLATE_UPDATE_DELAY = "myspring.mvc.template.update_delay";
+    //页面渲染方式 buffered/streaming
+    public static final String MVC_TEMPLATE_RENDER_MODE = "myspring.mvc.template.render_mode";
+    //指标的访问路径
+    public static final String MVC_METRICS_PATH = "myspring.mvc.metrics.path";
+    //日志根级别，按包名配置时在后面加上包名，如myspring.log.level.com.wu.spring.mvc
+    public static final String LOG_LEVEL = "myspring.log.level";
+    //日志文件路径
+    public static final String LOG_FILE = "myspring.log.file";
+    //日志环形缓冲区容量
+    public static final String LOG_BUFFER_SIZE = "myspring.log.buffer_size";
 }
@@ -0,0 +1,20 @@
+package com.wu.spring.constants;
+/**
+ * 并发上限的调整方式
+ * @author Cactus
+ *
+ */
+public enum LimitAlgorithm {
+	/**
+	 * 固定上限
+	 */
+	FIXED,
+	/**
+	 * 加性增、乘性减：未超时时逐个增加，超时或出错时按比例减少
+	 */
+	AIMD,
+	/**
+	 * 按长期平均耗时与近期耗时之比调整，耗时上升时收缩、平稳时缓慢增长
+	 */
+	GRADIENT
+}
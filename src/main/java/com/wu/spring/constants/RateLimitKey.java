@@ -0,0 +1,24 @@
+package com.wu.spring.constants;
+/**
+ * 限流的客户端维度
+ * @author Cactus
+ *
+ */
+public enum RateLimitKey {
+	/**
+	 * 整个路由共用一个令牌桶
+	 */
+	ROUTE,
+	/**
+	 * 按客户端IP
+	 */
+	IP,
+	/**
+	 * 按请求头，头名由keyName指定
+	 */
+	HEADER,
+	/**
+	 * 按请求参数，参数名由keyName指定
+	 */
+	PARAM
+}
@@ -0,0 +1,79 @@
+package com.wu.spring.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 读取ComponentIndexProcessor在编译期生成的组件索引
+ * @author Cactus
+ */
+public class ComponentIndex {
+    // 索引文件在classpath中的位置
+    public static final String INDEX_LOCATION = "META-INF/myspring.components";
+    // 组件注解的类名，建立索引和按class文件扫描时都只保留被这些注解直接标注的类。
+    // 用类名而不是注解类，注解处理器可以在编译注解类之前单独编译
+    public static final Set<String> COMPONENT_ANNOTATIONS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "com.wu.spring.annotation.ioc.Component",
+            "com.wu.spring.annotation.ioc.Service",
+            "com.wu.spring.annotation.ioc.Configuration",
+            "com.wu.spring.annotation.mvc.Controller",
+            "com.wu.spring.annotation.aop.Aspect",
+            "com.wu.mybatis.annotation.Mapper")));
+
+    private ComponentIndex() {
+    }
+
+    /**
+     * 读取classpath中全部的索引文件
+     * @param classLoader 类加载器
+     * @param basePackage 只保留该包下的类
+     * @return 类名到注解类名列表的映射；classpath中没有索引文件时返回null，调用方应回退为扫描
+     */
+    public static Map<String, List<String>> load(ClassLoader classLoader, String basePackage) throws IOException {
+        Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+        if (!urls.hasMoreElements()) {
+            return null;
+        }
+        String prefix = basePackage == null || basePackage.isEmpty() ? "" : basePackage + ".";
+        Map<String, List<String>> components = new LinkedHashMap<>();
+        while (urls.hasMoreElements()) {
+            try (InputStream in = urls.nextElement().openStream()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    int separator = line.indexOf('=');
+                    if (line.isEmpty() || line.startsWith("#") || separator <= 0) {
+                        continue;
+                    }
+                    String className = line.substring(0, separator).trim();
+                    if (!className.startsWith(prefix)) {
+                        continue;
+                    }
+                    String annotations = line.substring(separator + 1).trim();
+                    List<String> names = new ArrayList<>();
+                    if (!annotations.isEmpty()) {
+                        for (String annotation : annotations.split(",")) {
+                            names.add(annotation.trim());
+                        }
+                    }
+                    components.put(className, Collections.unmodifiableList(names));
+                }
+            }
+        }
+        return components;
+    }
+}
@@ -0,0 +1,95 @@
+package com.wu.spring.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 编译期生成组件索引的注解处理器。
+ * 收集直接被组件注解标注的类和接口（不含注解类型），编译结束时写入META-INF/myspring.components，
+ * 每行为"类名=注解类名,注解类名"，启动时ClassSetHelper读取该文件代替扫描classpath。
+ * 注解按类名匹配，处理器本身不依赖注解类，可以在编译注解类之前单独编译。
+ * @author Cactus
+ */
+public class ComponentIndexProcessor extends AbstractProcessor {
+    // 类名到注解类名，排序后输出，保证相同源码生成相同的索引
+    private final Map<String, Set<String>> components = new TreeMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return ComponentIndex.COMPONENT_ANNOTATIONS;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                // 被组件注解标注的注解类型只是组合注解，本身不是组件
+                if (!(element instanceof TypeElement) || element.getKind() == ElementKind.ANNOTATION_TYPE) {
+                    continue;
+                }
+                // 内部类使用$分隔的二进制名，与Class.forName一致
+                String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                Set<String> names = components.get(className);
+                if (names == null) {
+                    names = new TreeSet<>();
+                    components.put(className, names);
+                }
+                names.add(annotationName);
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        // 不独占这些注解，其他处理器仍可处理
+        return false;
+    }
+
+    private void writeIndex() {
+        if (components.isEmpty()) {
+            return;
+        }
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Set<String>> entry : components.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    boolean first = true;
+                    for (String annotation : entry.getValue()) {
+                        if (!first) {
+                            writer.write(',');
+                        }
+                        writer.write(annotation);
+                        first = false;
+                    }
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "无法写入组件索引: " + e.getMessage());
+        }
+    }
+}
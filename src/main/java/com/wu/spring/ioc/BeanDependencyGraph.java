@@ -0,0 +1,151 @@
+package com.wu.spring.ioc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * bean之间的依赖图。互相依赖的bean（强连通分量）合并为一组，组与组之间构成有向无环图，
+ * 一组bean在同一线程中按顺序创建，组内的循环依赖仍由三级缓存解决；没有依赖关系的组可以并行创建。
+ * @author Cactus
+ */
+class BeanDependencyGraph {
+    //按依赖顺序排列的分组，被依赖的组在前
+    private final List<List<String>> units = new ArrayList<>();
+    //每组直接依赖的组的个数
+    private final int[] dependencyCounts;
+    //依赖每组的组
+    private final List<List<Integer>> dependents = new ArrayList<>();
+
+    //Tarjan算法的中间状态
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final Map<String, Integer> lowLinks = new HashMap<>();
+    private final Map<String, Integer> unitOf = new HashMap<>();
+    private final List<String> stack = new ArrayList<>();
+    private final Set<String> onStack = new HashSet<>();
+
+    /**
+     * @param dependencies bean名到其依赖的bean名，不在key中的依赖会被忽略
+     */
+    BeanDependencyGraph(Map<String, Set<String>> dependencies) {
+        this.dependencies = dependencies;
+        for (String beanName : dependencies.keySet()) {
+            if (!indexes.containsKey(beanName)) {
+                connect(beanName);
+            }
+        }
+        dependencyCounts = new int[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            dependents.add(new ArrayList<Integer>());
+        }
+        for (int unit = 0; unit < units.size(); unit++) {
+            Set<Integer> required = new LinkedHashSet<>();
+            for (String beanName : units.get(unit)) {
+                for (String dependency : dependencies.get(beanName)) {
+                    Integer other = unitOf.get(dependency);
+                    if (other != null && other != unit) {
+                        required.add(other);
+                    }
+                }
+            }
+            dependencyCounts[unit] = required.size();
+            for (Integer other : required) {
+                dependents.get(other).add(unit);
+            }
+        }
+    }
+
+    /**
+     * Tarjan算法，分量在其依赖的分量之后生成，因此units天然按依赖顺序排列
+     */
+    private void connect(String beanName) {
+        int index = indexes.size();
+        indexes.put(beanName, index);
+        lowLinks.put(beanName, index);
+        stack.add(beanName);
+        onStack.add(beanName);
+        for (String dependency : dependencies.get(beanName)) {
+            if (!dependencies.containsKey(dependency)) {
+                continue;
+            }
+            if (!indexes.containsKey(dependency)) {
+                connect(dependency);
+                lowLinks.put(beanName, Math.min(lowLinks.get(beanName), lowLinks.get(dependency)));
+            } else if (onStack.contains(dependency)) {
+                lowLinks.put(beanName, Math.min(lowLinks.get(beanName), indexes.get(dependency)));
+            }
+        }
+        if (lowLinks.get(beanName).intValue() == index) {
+            List<String> unit = new ArrayList<>();
+            String member;
+            do {
+                member = stack.remove(stack.size() - 1);
+                onStack.remove(member);
+                unitOf.put(member, units.size());
+                unit.add(member);
+            } while (!member.equals(beanName));
+            units.add(unit);
+        }
+    }
+
+    /**
+     * @return 按依赖顺序排列的分组，顺序执行时依次创建即可
+     */
+    List<List<String>> getUnits() {
+        return units;
+    }
+
+    /**
+     * 在执行器中创建全部分组：没有未完成依赖的组立即提交，一组完成后提交依赖数降为0的组
+     * @param executor 执行器
+     * @param action   创建一组bean
+     */
+    void execute(final Executor executor, final UnitAction action) throws InterruptedException {
+        final AtomicInteger[] remaining = new AtomicInteger[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            remaining[i] = new AtomicInteger(dependencyCounts[i]);
+        }
+        final CountDownLatch finished = new CountDownLatch(units.size());
+        // 用数组持有，使匿名类中可以递归提交
+        final Runnable[] tasks = new Runnable[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            final int unit = i;
+            tasks[i] = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        action.run(units.get(unit));
+                    } finally {
+                        for (Integer dependent : dependents.get(unit)) {
+                            if (remaining[dependent].decrementAndGet() == 0) {
+                                executor.execute(tasks[dependent]);
+                            }
+                        }
+                        finished.countDown();
+                    }
+                }
+            };
+        }
+        for (int i = 0; i < units.size(); i++) {
+            if (dependencyCounts[i] == 0) {
+                executor.execute(tasks[i]);
+            }
+        }
+        finished.await();
+    }
+
+    /**
+     * 创建一组bean
+     */
+    interface UnitAction {
+        void run(List<String> beanNames);
+    }
+}
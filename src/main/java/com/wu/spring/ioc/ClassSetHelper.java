@@ -1,31 +1,148 @@
 package com.wu.spring.ioc;
 
 import com.wu.spring.annotation.ioc.Component;
-import com.wu.spring.annotation.ioc.Configuration;
 import com.wu.spring.annotation.ioc.Service;
 import com.wu.spring.annotation.mvc.Controller;
 import com.wu.spring.constants.ConfigConstant;
+import com.wu.spring.index.ComponentIndex;
+import com.wu.spring.log.Logger;
+import com.wu.spring.metrics.StartupTrace;
 import com.wu.spring.utils.ClassUtil;
+import com.wu.spring.utils.ConfigUtil;
 import com.wu.spring.utils.PropsUtil;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
 public class ClassSetHelper {
     //定义一个Set 存放所有的加载类
     private static final Set<Class<?>> CLASS_SET;
+    //注解类型到被该注解标注的类，扫描后一次遍历生成，不可修改
+    private static final Map<Class<? extends Annotation>, Set<Class<?>>> ANNOTATED_CLASSES;
+    //被Component,Service,Controller注解的类
+    private static final Set<Class<?>> BEAN_CLASS_SET;
+    //父类、接口和注解value到实现类的索引
+    private static final TypeHierarchyIndex TYPE_INDEX;
+    private static final Logger LOGGER = Logger.getLogger(ClassSetHelper.class);
     static{
         Properties props = PropsUtil.loadProps("application.properties");
         String basePackName = PropsUtil.getString(props, ConfigConstant.APP_BASE_PACKAGE);
-        CLASS_SET = ClassUtil.getClassSet(basePackName);
+        Set<Class<?>> indexed = ConfigUtil.getAppComponentIndex() ? loadFromIndex(basePackName) : null;
+        if (indexed != null) {
+            CLASS_SET = Collections.unmodifiableSet(indexed);
+        } else {
+            long start = System.nanoTime();
+            List<String> classNames = ConfigUtil.getAppScanMetadata()
+                    ? ClassUtil.getAnnotatedClassNames(basePackName) : ClassUtil.getClassNames(basePackName);
+            StartupTrace.record("scan_class_names", start);
+            start = System.nanoTime();
+            CLASS_SET = Collections.unmodifiableSet(ClassUtil.loadClasses(classNames));
+            StartupTrace.record("load_classes", start);
+        }
+        long start = System.nanoTime();
+        ANNOTATED_CLASSES = groupByAnnotation(CLASS_SET);
+        Set<Class<?>> beanClassSet = new HashSet<Class<?>>();
+        beanClassSet.addAll(getClassSetByAnnotation(Service.class));
+        beanClassSet.addAll(getClassSetByAnnotation(Controller.class));
+        beanClassSet.addAll(getClassSetByAnnotation(Component.class));
+        BEAN_CLASS_SET = Collections.unmodifiableSet(beanClassSet);
+        StartupTrace.record("group_by_annotation", start);
+        start = System.nanoTime();
+        TYPE_INDEX = new TypeHierarchyIndex(CLASS_SET);
+        StartupTrace.record("build_type_index", start);
+        LOGGER.info("加载{}个类, 其中bean{}个", CLASS_SET.size(), BEAN_CLASS_SET.size());
     }
 
     /**
-     * 获得所有类对象集合
-     * @return 所有类对象集合
+     * 按编译期生成的组件索引加载类，只加载被组件注解标注的类。
+     * 索引中的类不存在、已不再有记录的注解或是注解类型时，说明索引已过期，回退为扫描
+     * @param basePackName 基础包名
+     * @return 没有索引文件、索引中没有该包下的类或索引已过期时返回null
+     */
+    private static Set<Class<?>> loadFromIndex(String basePackName) {
+        long start = System.nanoTime();
+        Map<String, List<String>> components;
+        try {
+            components = ComponentIndex.load(ClassUtil.getClassLoader(), basePackName);
+        } catch (IOException e) {
+            LOGGER.warn("读取组件索引失败，改为扫描classpath: {}", e.getMessage());
+            return null;
+        }
+        if (components == null || components.isEmpty()) {
+            return null;
+        }
+        StartupTrace.record("read_component_index", start);
+        start = System.nanoTime();
+        Set<Class<?>> classSet;
+        try {
+            classSet = ClassUtil.loadClasses(new ArrayList<String>(components.keySet()));
+        } catch (RuntimeException e) {
+            // 索引中的类已被删除或改名
+            LOGGER.warn("组件索引已过期，改为扫描classpath: {}", e.getCause() != null ? e.getCause() : e);
+            return null;
+        }
+        StartupTrace.record("load_classes", start);
+        for (Class<?> cls : classSet) {
+            if (!isIndexedComponent(cls, components.get(cls.getName()))) {
+                LOGGER.warn("组件索引已过期，改为扫描classpath: {}", cls.getName());
+                return null;
+            }
+        }
+        LOGGER.info("使用组件索引{}加载{}个组件类，不再扫描classpath", ComponentIndex.INDEX_LOCATION, classSet.size());
+        return classSet;
+    }
+
+    /**
+     * @param annotationNames 索引中记录的注解类名
+     * @return 类上仍有其中至少一个注解
+     */
+    private static boolean isIndexedComponent(Class<?> cls, List<String> annotationNames) {
+        if (cls.isAnnotation() || annotationNames == null) {
+            return false;
+        }
+        for (Annotation annotation : cls.getDeclaredAnnotations()) {
+            if (annotationNames.contains(annotation.annotationType().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一次遍历所有类，按类上的注解分组。与isAnnotationPresent一致，包含@Inherited继承下来的注解
+     */
+    private static Map<Class<? extends Annotation>, Set<Class<?>>> groupByAnnotation(Set<Class<?>> classSet) {
+        Map<Class<? extends Annotation>, Set<Class<?>>> grouped = new HashMap<Class<? extends Annotation>, Set<Class<?>>>();
+        for (Class<?> cls : classSet) {
+            for (Annotation annotation : cls.getAnnotations()) {
+                Class<? extends Annotation> type = annotation.annotationType();
+                Set<Class<?>> classes = grouped.get(type);
+                if (classes == null) {
+                    classes = new HashSet<Class<?>>();
+                    grouped.put(type, classes);
+                }
+                classes.add(cls);
+            }
+        }
+        for (Map.Entry<Class<? extends Annotation>, Set<Class<?>>> entry : grouped.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(grouped);
+    }
+
+    /**
+     * 获得扫描得到的类对象集合。
+     * scan_metadata开启时只包含被组件注解标注的类，以及base_package中继承或实现了它们的类；
+     * 使用组件索引时只包含索引中的类；否则为base_package下的全部类
+     * @return 类对象集合
      */
     public static Set<Class<?>> getClassSet() {
         return CLASS_SET;
@@ -37,60 +154,29 @@ public class ClassSetHelper {
      * @return 获得被Component,Service,Controller注解的类对象集合
      */
     public static Set<Class<?>> getBeanClassSet() {
-        // HashSet避免重复。
-        Set<Class<?>> beanClassSet = new HashSet<Class<?>>();
-        beanClassSet.addAll(getServiceClassSet());
-        beanClassSet.addAll(getControllerClassSet());
-        beanClassSet.addAll(getComponentClassSet());
-        return beanClassSet;
+        return BEAN_CLASS_SET;
     }
 
     /**
-     * @return 获得被Component注解的类对象集合
+     * @return 查找实现类的类型索引
      */
-    private static Set<Class<?>> getComponentClassSet() {
-        Set<Class<?>> classSet = new HashSet<Class<?>>();
-        for (Class<?> clz : CLASS_SET) {
-            if (clz.isAnnotationPresent(Component.class)){
-                classSet.add(clz);
-            }
-        }
-        return classSet;
+    public static TypeHierarchyIndex getTypeIndex() {
+        return TYPE_INDEX;
     }
 
     /**
      * @return 获得被Controller注解的类对象集合
      */
     public static Set<Class<?>> getControllerClassSet() {
-        Set<Class<?>> classSet = new HashSet<Class<?>>();
-        for (Class<?> cls : CLASS_SET) {
-            if (cls.isAnnotationPresent(Controller.class)) {
-                classSet.add(cls);
-            }
-        }
-        return classSet;
+        return getClassSetByAnnotation(Controller.class);
     }
 
     /**
-     * @return 获得被Service注解的类对象集合
+     * @param present 注解类型
+     * @return 被该注解标注的类对象集合，不可修改
      */
-    private static Set<Class<?>> getServiceClassSet() {
-        Set<Class<?>> classSet = new HashSet<Class<?>>();
-        for (Class<?> clz : CLASS_SET) {
-            if (clz.isAnnotationPresent(Service.class)){
-                classSet.add(clz);
-            }
-        }
-        return classSet;
-    }
-
     public static Set<Class<?>> getClassSetByAnnotation(Class<? extends Annotation> present) {
-        Set<Class<?>> classSet = new HashSet<Class<?>>();
-        for (Class<?> cls : CLASS_SET) {
-            if(cls.isAnnotationPresent(present)){
-                classSet.add(cls);
-            }
-        }
-        return classSet;
+        Set<Class<?>> classSet = ANNOTATED_CLASSES.get(present);
+        return classSet != null ? classSet : Collections.<Class<?>>emptySet();
     }
 }
@@ -1,25 +1,30 @@
 package com.wu.spring.ioc;
 
 import com.wu.spring.annotation.ioc.*;
-import com.wu.spring.annotation.mvc.Controller;
 import com.wu.spring.common.MyProxy;
 import com.wu.spring.constants.BeanScope;
+import com.wu.spring.log.Logger;
+import com.wu.spring.metrics.StartupTrace;
 import com.wu.spring.utils.ConfigUtil;
 
 import javax.annotation.Resource;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 获取相关bean方法，以及解决循环依赖问题类。
  * @author Cactus
  */
 public class DefaultBeanFactory implements BeanFactory {
+    private static final Logger LOGGER = Logger.getLogger(DefaultBeanFactory.class);
     //bean工厂单例
     private static volatile DefaultBeanFactory instance = null;
     //一级缓存Bean容器，IOC容器，直接从此处获取Bean
@@ -28,8 +33,15 @@ public class DefaultBeanFactory implements BeanFactory {
     private static Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>();
     //三级缓存，值为一个对象工厂，可以返回实例对象
     private static Map<String, ObjectFactory> singletonFactories = new ConcurrentHashMap<>();
-    //是否在创建中
-    private static Set<String> singletonsCurrennlyInCreation = new HashSet<>();
+    //当前线程正在创建的bean，只有创建它的线程才能拿到半成品，其他线程在创建锁上等待其完成
+    private static final ThreadLocal<Set<String>> singletonsCurrennlyInCreation = new ThreadLocal<Set<String>>() {
+        @Override
+        protected Set<String> initialValue() {
+            return new HashSet<>();
+        }
+    };
+    //每个bean创建时持有的锁，保证同一个bean只被一个线程创建
+    private static Map<String, Object> creationLocks = new ConcurrentHashMap<>();
 
     //Bean的注册信息BeanDefinition容器
     private static Map<String, BeanDefinition> beanDefinitionMap = BeanDefinitionRegistry.getBeanDefinitionMap();
@@ -38,6 +50,7 @@ public class DefaultBeanFactory implements BeanFactory {
     static {
         //ClassSetHelper.getInheritedComponentClassSet();
         Set<Class<?>> beanClassSet = ClassSetHelper.getBeanClassSet();
+        long start = System.nanoTime();
         if(beanClassSet!=null && !beanClassSet.isEmpty()) {
             try {
                 // 先将所有类进行BeanDefinition的注册。并未进行bean实例化。
@@ -54,6 +67,7 @@ public class DefaultBeanFactory implements BeanFactory {
                 e.printStackTrace();
             }
         }
+        StartupTrace.record("register_bean_definitions", start);
     }
 
     private  DefaultBeanFactory() {
@@ -144,11 +158,58 @@ public class DefaultBeanFactory implements BeanFactory {
         this.setBean(cls.getName(), beanObject);
     }
 
+    /**
+     * 按Autowired/Resource属性计算依赖图，没有依赖关系的bean在ForkJoinPool中并行创建。
+     * Bean方法在注册BeanDefinition时已经调用，不在图中
+     */
     @Override
     public void refresh() throws Exception {
+        Map<String, Set<String>> dependencies = new HashMap<>();
         for(Map.Entry<String, BeanDefinition> entry: beanDefinitionMap.entrySet()) {
-            getBean(entry.getKey());
+            dependencies.put(entry.getKey(), getDependencies(entry.getValue()));
+        }
+        BeanDependencyGraph graph = new BeanDependencyGraph(dependencies);
+        int parallelism = ConfigUtil.getAppRefreshParallelism();
+        if(parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        LOGGER.info("创建{}个bean, 按依赖关系分为{}组", dependencies.size(), graph.getUnits().size());
+        BeanDependencyGraph.UnitAction createUnit = new BeanDependencyGraph.UnitAction() {
+            @Override
+            public void run(List<String> beanNames) {
+                for(String beanName : beanNames) {
+                    getBean(beanName);
+                }
+            }
+        };
+        if(parallelism == 1 || graph.getUnits().size() <= 1) {
+            for(List<String> unit : graph.getUnits()) {
+                createUnit.run(unit);
+            }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            graph.execute(pool, createUnit);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param beanDefinition bean定义
+     * @return 注入属性时会获取的bean名
+     */
+    private static Set<String> getDependencies(BeanDefinition beanDefinition) {
+        Set<String> dependencies = new HashSet<>();
+        Class<?> beanClass = findImplementClass(beanDefinition.getBeanClass(), null);
+        for (Field beanField : beanClass.getDeclaredFields()) {
+            if (!beanField.isAnnotationPresent(Value.class)
+                    && (beanField.isAnnotationPresent(Autowired.class) || beanField.isAnnotationPresent(Resource.class))) {
+                dependencies.add(resolveFieldClass(beanField).getName());
+            }
         }
+        return dependencies;
     }
 
     /**
@@ -163,6 +224,7 @@ public class DefaultBeanFactory implements BeanFactory {
     /**
      * @throws Exception 捕捉异常
      * 实现由Configuration注解类，并注入由Bean标注的方法对象。
+     * 调用完Bean方法后从一级缓存中移除配置类对象
      */
     private void initConfigBean() throws Exception {
         Set<Class<?>> configClassSet = ClassSetHelper.getClassSetByAnnotation(Configuration.class);
@@ -187,7 +249,7 @@ public class DefaultBeanFactory implements BeanFactory {
                     Object bean = method.invoke(configBean);
                     String keyName = returnClass.getName();
                     singletonObjects.put(keyName, bean);
-                    System.out.println("成功注入"+configClass.getName()+" 中的  "+returnClass.getName());
+                    LOGGER.info("成功注入{} 中的  {}", configClass.getName(), returnClass.getName());
                 }
             }
             singletonObjects.remove(configClass.getName());
@@ -209,10 +271,35 @@ public class DefaultBeanFactory implements BeanFactory {
         if(bean != null) {
             return bean;
         }
-        //如果未获取到bean，且bean不在创建中，则置bean的状态为在创建中
-        if(!singletonsCurrennlyInCreation.contains(beanName)) {
-            singletonsCurrennlyInCreation.add(beanName);
+        Object lock = creationLocks.get(beanName);
+        if(lock == null) {
+            creationLocks.putIfAbsent(beanName, new Object());
+            lock = creationLocks.get(beanName);
         }
+        // 其他线程正在创建时等待其完成；本线程的循环依赖在上面已从缓存中拿到半成品
+        synchronized (lock) {
+            bean = getSingleton(beanName);
+            if(bean != null) {
+                return bean;
+            }
+            //如果未获取到bean，且bean不在创建中，则置bean的状态为在创建中
+            Set<String> inCreation = singletonsCurrennlyInCreation.get();
+            inCreation.add(beanName);
+            try {
+                return createBean(beanName);
+            } finally {
+                inCreation.remove(beanName);
+            }
+        }
+    }
+
+    /**
+     * 实例化bean并注入属性，经过三级缓存后放入一级缓存
+     * @param beanName bean的类名
+     * @return bean对象
+     */
+    private Object createBean(String beanName) throws Exception {
+        Object bean;
         BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
         if(beanDefinition == null) {
             throw new Exception("不存在 "+beanName+" 的定义");
@@ -273,10 +360,10 @@ public class DefaultBeanFactory implements BeanFactory {
         if(bean!=null) {
             return bean;
         }
-        //如果一级缓存不存在bean，且bean在创建中，
+        //如果一级缓存不存在bean，且bean正由当前线程创建，
         //则从二级缓存中拿出半成品bean返回，
         //如果二级缓存也没有，则从三级缓存拿出放入二级缓存中
-        if(singletonsCurrennlyInCreation.contains(beanName)) {
+        if(singletonsCurrennlyInCreation.get().contains(beanName)) {
             bean = earlySingletonObjects.get(beanName);
             if(bean == null) {
                 ObjectFactory factory = singletonFactories.get(beanName);
@@ -292,34 +379,12 @@ public class DefaultBeanFactory implements BeanFactory {
     }
 
     /**
-     * 找到实现类
+     * 找到实现类，查扫描后建立的类型索引
      * @param interfaceClass  实现类。
      * @return 实现类
      */
     private static Class<?> findImplementClass(Class<?> interfaceClass,String name){
-        Class<?> implementClass = interfaceClass;
-        Set<Class<?>> classSet = new HashSet<>();
-        for(Class<?> cls : ClassSetHelper.getClassSet()) {
-            if(interfaceClass!=null && interfaceClass.isAssignableFrom(cls) && !interfaceClass.equals(cls)) {
-                if(name!=null && !"".equals(name)) {
-                    if(isClassAnnotationedName(cls, name)) {
-                        return cls;
-                    }
-                }
-                classSet.add(cls);
-            }
-            else if(interfaceClass==null) {
-                if(name!=null && !"".equals(name)) {
-                    if(isClassAnnotationedName(cls, name) || (cls.getSimpleName().equals(name) && !cls.isInterface())) {
-                        return cls;
-                    }
-                }
-            }
-            if(classSet != null && !classSet.isEmpty()) {
-                implementClass = classSet.iterator().next();
-            }
-        }
-        return implementClass;
+        return ClassSetHelper.getTypeIndex().findImplementClass(interfaceClass, name);
     }
 
     /**
@@ -366,34 +431,7 @@ public class DefaultBeanFactory implements BeanFactory {
                 }
                 //找Autowired/Resource注解属性
                 else if (beanField.isAnnotationPresent(Autowired.class) || beanField.isAnnotationPresent(Resource.class)) {
-                    Class<?> beanFieldClass = beanField.getType();
-                    String qualifier = null;
-                    if(beanField.isAnnotationPresent(Autowired.class)) {
-                        if(beanField.isAnnotationPresent(Qualifier.class)) {
-                            qualifier=beanField.getAnnotation(Qualifier.class).value();
-                        }
-                        //Service找实现
-                        beanFieldClass = findImplementClass(beanFieldClass,qualifier);
-                    }
-                    else if(beanField.isAnnotationPresent(Resource.class)){
-                        qualifier = beanField.getAnnotation(Resource.class).name();
-                        if(qualifier==null || qualifier.equals("")) {
-                            qualifier = beanFieldClass.getSimpleName();
-                        }
-                        Class<?> tmpClass= findImplementClass(null,qualifier);
-                        if(tmpClass==null || tmpClass.isInterface()) {
-                            Class<?> beanAnnotationType = beanField.getAnnotation(Resource.class).type();
-                            if(beanAnnotationType!=java.lang.Object.class) {
-                                beanFieldClass = findImplementClass(beanAnnotationType, null);
-                            }
-                            else {
-                                beanFieldClass = findImplementClass(beanFieldClass, null);
-                            }
-                        }
-                        else {
-                            beanFieldClass = tmpClass;
-                        }
-                    }
+                    Class<?> beanFieldClass = resolveFieldClass(beanField);
                     //根据beanName去找实例(这时是实现类的beanName)
                     beanField.setAccessible(true);
                     try {
@@ -409,15 +447,40 @@ public class DefaultBeanFactory implements BeanFactory {
         }
     }
 
-
     /**
-     * @param cls 类
-     * @param name  注解默认值
-     * @return  是否是注解默认值
+     * 按Autowired/Qualifier或Resource注解找到属性要注入的bean的类
+     * @param beanField 属性
+     * @return 要注入的bean的类，其类名即beanName
      */
-    private static boolean isClassAnnotationedName(Class<?> cls,String name) {
-        return (cls.isAnnotationPresent(Component.class) && cls.getAnnotation(Component.class).value().equals(name)) ||
-                (cls.isAnnotationPresent(Service.class) && cls.getAnnotation(Service.class).value().equals(name)) ||
-                (cls.isAnnotationPresent(Controller.class) && cls.getAnnotation(Controller.class).value().equals(name));
+    private static Class<?> resolveFieldClass(Field beanField) {
+        Class<?> beanFieldClass = beanField.getType();
+        String qualifier = null;
+        if(beanField.isAnnotationPresent(Autowired.class)) {
+            if(beanField.isAnnotationPresent(Qualifier.class)) {
+                qualifier=beanField.getAnnotation(Qualifier.class).value();
+            }
+            //Service找实现
+            beanFieldClass = findImplementClass(beanFieldClass,qualifier);
+        }
+        else if(beanField.isAnnotationPresent(Resource.class)){
+            qualifier = beanField.getAnnotation(Resource.class).name();
+            if(qualifier==null || qualifier.equals("")) {
+                qualifier = beanFieldClass.getSimpleName();
+            }
+            Class<?> tmpClass= findImplementClass(null,qualifier);
+            if(tmpClass==null || tmpClass.isInterface()) {
+                Class<?> beanAnnotationType = beanField.getAnnotation(Resource.class).type();
+                if(beanAnnotationType!=java.lang.Object.class) {
+                    beanFieldClass = findImplementClass(beanAnnotationType, null);
+                }
+                else {
+                    beanFieldClass = findImplementClass(beanFieldClass, null);
+                }
+            }
+            else {
+                beanFieldClass = tmpClass;
+            }
+        }
+        return beanFieldClass;
     }
 }
@@ -0,0 +1,135 @@
+package com.wu.spring.ioc;
+
+import com.wu.spring.annotation.ioc.Component;
+import com.wu.spring.annotation.ioc.Service;
+import com.wu.spring.annotation.mvc.Controller;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 扫描后一次建立的类型索引，依赖注入时查找实现类只需查表：
+ * 父类或接口到其子类型，Component/Service/Controller注解的value到类，类的简单名到类。
+ * @author Cactus
+ */
+public class TypeHierarchyIndex {
+    //父类或接口到其子类型，具体类排在抽象类和接口之前
+    private final Map<Class<?>, List<Class<?>>> subTypes = new HashMap<>();
+    //注解value到被标注的类
+    private final Map<String, List<Class<?>>> qualifiedClasses = new HashMap<>();
+    //简单类名到该名字的非接口类
+    private final Map<String, List<Class<?>>> simpleNameClasses = new HashMap<>();
+
+    /**
+     * @param classSet 扫描得到的类
+     */
+    public TypeHierarchyIndex(Set<Class<?>> classSet) {
+        Map<Class<?>, List<Class<?>>> abstractSubTypes = new HashMap<>();
+        for (Class<?> cls : classSet) {
+            boolean concrete = !cls.isInterface() && !Modifier.isAbstract(cls.getModifiers());
+            Set<Class<?>> superTypes = new HashSet<>();
+            collectSuperTypes(cls, superTypes);
+            for (Class<?> superType : superTypes) {
+                add(concrete ? subTypes : abstractSubTypes, superType, cls);
+            }
+            addQualifier(cls, cls.getAnnotation(Component.class) != null ? cls.getAnnotation(Component.class).value() : null);
+            addQualifier(cls, cls.getAnnotation(Service.class) != null ? cls.getAnnotation(Service.class).value() : null);
+            addQualifier(cls, cls.getAnnotation(Controller.class) != null ? cls.getAnnotation(Controller.class).value() : null);
+            if (!cls.isInterface()) {
+                add(simpleNameClasses, cls.getSimpleName(), cls);
+            }
+        }
+        for (Map.Entry<Class<?>, List<Class<?>>> entry : abstractSubTypes.entrySet()) {
+            List<Class<?>> classes = subTypes.get(entry.getKey());
+            if (classes == null) {
+                subTypes.put(entry.getKey(), entry.getValue());
+            } else {
+                classes.addAll(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 找到实现类
+     * @param interfaceClass 父类或接口，为null时只按名字查找
+     * @param name           注解value，按类型查找时可为null
+     * @return 有名字匹配的子类型时返回该类，否则返回第一个子类型，没有子类型时返回interfaceClass本身；
+     * interfaceClass为null时返回注解value或简单类名匹配的类，找不到返回null
+     */
+    public Class<?> findImplementClass(Class<?> interfaceClass, String name) {
+        boolean named = name != null && !"".equals(name);
+        if (interfaceClass == null) {
+            if (!named) {
+                return null;
+            }
+            List<Class<?>> classes = qualifiedClasses.get(name);
+            if (classes == null) {
+                classes = simpleNameClasses.get(name);
+            }
+            return classes != null ? classes.get(0) : null;
+        }
+        List<Class<?>> implementations = subTypes.get(interfaceClass);
+        if (implementations == null) {
+            return interfaceClass;
+        }
+        if (named) {
+            List<Class<?>> classes = qualifiedClasses.get(name);
+            if (classes != null) {
+                for (Class<?> cls : classes) {
+                    if (cls != interfaceClass && interfaceClass.isAssignableFrom(cls)) {
+                        return cls;
+                    }
+                }
+            }
+        }
+        return implementations.get(0);
+    }
+
+    /**
+     * @param type 父类或接口
+     * @return 扫描到的子类型，不包括type本身
+     */
+    public List<Class<?>> getSubTypes(Class<?> type) {
+        List<Class<?>> classes = subTypes.get(type);
+        return classes != null ? Collections.unmodifiableList(classes) : Collections.<Class<?>>emptyList();
+    }
+
+    /**
+     * 收集所有父类和接口，不包括Object
+     */
+    private static void collectSuperTypes(Class<?> cls, Set<Class<?>> superTypes) {
+        Class<?> superClass = cls.getSuperclass();
+        if (superClass != null && superClass != Object.class && superTypes.add(superClass)) {
+            collectSuperTypes(superClass, superTypes);
+        }
+        for (Class<?> superInterface : cls.getInterfaces()) {
+            if (superTypes.add(superInterface)) {
+                collectSuperTypes(superInterface, superTypes);
+            }
+        }
+    }
+
+    /**
+     * 记录Component,Service,Controller注解的value，为空时不记录
+     */
+    private void addQualifier(Class<?> cls, String value) {
+        if (value != null && !"".equals(value)) {
+            add(qualifiedClasses, value, cls);
+        }
+    }
+
+    private static <K> void add(Map<K, List<Class<?>>> map, K key, Class<?> cls) {
+        List<Class<?>> classes = map.get(key);
+        if (classes == null) {
+            classes = new ArrayList<>();
+            map.put(key, classes);
+        }
+        classes.add(cls);
+    }
+}
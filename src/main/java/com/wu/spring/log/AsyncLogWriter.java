@@ -0,0 +1,174 @@
+package com.wu.spring.log;
+
+import com.wu.spring.utils.ConfigUtil;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志写出。
+ * 写日志的线程通过CAS在环形缓冲区中占一个位置后放入记录，不加锁；缓冲区满时丢弃并计数，不阻塞请求线程。
+ * 唯一的后台线程按顺序取出记录，格式化后写入日志文件，缓冲区为空时短暂休眠。
+ * @author Cactus
+ */
+public class AsyncLogWriter {
+    // 环形缓冲区容量，取2的幂
+    private static final int CAPACITY = Integer.highestOneBit(Math.max(ConfigUtil.getLogBufferSize(), 2) - 1) << 1;
+    private static final int MASK = CAPACITY - 1;
+    // 缓冲区为空时后台线程的休眠纳秒数
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final AtomicReferenceArray<LogRecord> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+    // 下一个可以占用的位置
+    private static final AtomicLong TAIL = new AtomicLong();
+    // 后台线程下一个要读取的位置，只由后台线程修改
+    private static volatile long head = 0;
+    private static final LongAdder DROPPED = new LongAdder();
+
+    private static final Writer OUT = openWriter(ConfigUtil.getLogFile());
+    private static final Thread WRITER_THREAD;
+
+    static {
+        WRITER_THREAD = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "myspring-log-writer");
+        WRITER_THREAD.setDaemon(true);
+        WRITER_THREAD.start();
+        // 退出前写出缓冲区中剩余的日志
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+                flush();
+            }
+        }, "myspring-log-shutdown"));
+    }
+
+    private AsyncLogWriter() {
+    }
+
+    /**
+     * 放入一条日志记录
+     * @return 缓冲区已满时返回false，该记录被丢弃
+     */
+    static boolean append(LogRecord record) {
+        long sequence;
+        do {
+            sequence = TAIL.get();
+            if (sequence - head >= CAPACITY) {
+                DROPPED.increment();
+                return false;
+            }
+        } while (!TAIL.compareAndSet(sequence, sequence + 1));
+        SLOTS.set((int) (sequence & MASK), record);
+        return true;
+    }
+
+    /**
+     * @return 因缓冲区已满被丢弃的日志条数
+     */
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    private static void drainLoop() {
+        while (true) {
+            if (drain() > 0) {
+                flush();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 按顺序写出已就绪的记录。位置已被占用但记录还未放入时停在该位置，下次再读。
+     * @return 写出的条数
+     */
+    private static synchronized int drain() {
+        int written = 0;
+        long current = head;
+        while (current < TAIL.get()) {
+            int index = (int) (current & MASK);
+            LogRecord record = SLOTS.get(index);
+            if (record == null) {
+                break;
+            }
+            SLOTS.lazySet(index, null);
+            current++;
+            head = current;
+            write(record);
+            written++;
+        }
+        return written;
+    }
+
+    // 只在后台线程中使用，由drain的同步保证
+    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final StringBuilder LINE = new StringBuilder(256);
+
+    private static void write(LogRecord record) {
+        LINE.setLength(0);
+        LINE.append(DATE_FORMAT.format(new Date(record.timestamp))).append(' ')
+                .append(record.level.name());
+        for (int i = record.level.name().length(); i < 5; i++) {
+            LINE.append(' ');
+        }
+        LINE.append(" [").append(record.threadName).append("] ")
+                .append(record.loggerName).append(" - ").append(record.message)
+                .append(System.lineSeparator());
+        try {
+            OUT.write(LINE.toString());
+            if (record.throwable != null) {
+                PrintWriter printWriter = new PrintWriter(OUT);
+                record.throwable.printStackTrace(printWriter);
+                printWriter.flush();
+            }
+        } catch (IOException e) {
+            // 日志写不出去时不影响业务
+        }
+    }
+
+    private static synchronized void flush() {
+        try {
+            OUT.flush();
+        } catch (IOException e) {
+            // 同上
+        }
+    }
+
+    /**
+     * 配置了日志文件时追加写入该文件，否则写到标准输出
+     */
+    private static Writer openWriter(String file) {
+        if (file != null && !file.trim().isEmpty()) {
+            try {
+                File logFile = new File(file.trim());
+                File parent = logFile.getAbsoluteFile().getParentFile();
+                if (parent != null && !parent.exists()) {
+                    parent.mkdirs();
+                }
+                return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8), 64 * 1024);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+}
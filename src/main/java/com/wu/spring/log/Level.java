@@ -0,0 +1,9 @@
+package com.wu.spring.log;
+
+/**
+ * 日志级别，数值越大越重要
+ * @author Cactus
+ */
+public enum Level {
+    DEBUG, INFO, WARN, ERROR, OFF
+}
@@ -0,0 +1,23 @@
+package com.wu.spring.log;
+
+/**
+ * 一条日志记录，时间和线程名在记录时确定，格式化由写日志的后台线程完成
+ * @author Cactus
+ */
+class LogRecord {
+    final long timestamp;
+    final Level level;
+    final String loggerName;
+    final String threadName;
+    final String message;
+    final Throwable throwable;
+
+    LogRecord(long timestamp, Level level, String loggerName, String threadName, String message, Throwable throwable) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = threadName;
+        this.message = message;
+        this.throwable = throwable;
+    }
+}
@@ -0,0 +1,159 @@
+package com.wu.spring.log;
+
+import com.wu.spring.utils.ConfigUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 框架日志门面。级别在创建时按包名解析为一个整数，未开启的级别只做一次整数比较；
+ * 消息使用{}占位符，只有级别开启时才拼接，拼好的日志记录放入AsyncLogWriter的环形缓冲区，由后台线程写出。
+ * @author Cactus
+ */
+public class Logger {
+    private static final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+    // 根级别以及按包名配置的级别
+    private static final Level ROOT_LEVEL = parse(ConfigUtil.getLogLevel(), Level.INFO);
+    private static final Map<String, String> PACKAGE_LEVELS = ConfigUtil.getLogPackageLevels();
+
+    private final String name;
+    // 开启的最低级别
+    private final int threshold;
+
+    private Logger(String name, Level level) {
+        this.name = name;
+        this.threshold = level.ordinal();
+    }
+
+    /**
+     * @param clazz 使用日志的类
+     * @return 该类的日志对象，应保存在静态常量中
+     */
+    public static Logger getLogger(Class<?> clazz) {
+        String name = clazz.getName();
+        Logger logger = LOGGERS.get(name);
+        if (logger == null) {
+            logger = new Logger(name, resolveLevel(name));
+            LOGGERS.put(name, logger);
+        }
+        return logger;
+    }
+
+    /**
+     * 按最长的包名前缀匹配级别，没有匹配时使用根级别
+     */
+    private static Level resolveLevel(String name) {
+        String matched = null;
+        for (String prefix : PACKAGE_LEVELS.keySet()) {
+            if ((name.equals(prefix) || name.startsWith(prefix + "."))
+                    && (matched == null || prefix.length() > matched.length())) {
+                matched = prefix;
+            }
+        }
+        return matched == null ? ROOT_LEVEL : parse(PACKAGE_LEVELS.get(matched), ROOT_LEVEL);
+    }
+
+    private static Level parse(String value, Level defaultLevel) {
+        if (value == null) {
+            return defaultLevel;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold <= Level.DEBUG.ordinal();
+    }
+
+    public boolean isInfoEnabled() {
+        return threshold <= Level.INFO.ordinal();
+    }
+
+    public void debug(String message) {
+        if (threshold <= Level.DEBUG.ordinal()) {
+            log(Level.DEBUG, message, null);
+        }
+    }
+
+    public void debug(String format, Object arg) {
+        if (threshold <= Level.DEBUG.ordinal()) {
+            log(Level.DEBUG, format(format, arg, null, 1), null);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (threshold <= Level.DEBUG.ordinal()) {
+            log(Level.DEBUG, format(format, arg1, arg2, 2), null);
+        }
+    }
+
+    public void info(String message) {
+        if (threshold <= Level.INFO.ordinal()) {
+            log(Level.INFO, message, null);
+        }
+    }
+
+    public void info(String format, Object arg) {
+        if (threshold <= Level.INFO.ordinal()) {
+            log(Level.INFO, format(format, arg, null, 1), null);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (threshold <= Level.INFO.ordinal()) {
+            log(Level.INFO, format(format, arg1, arg2, 2), null);
+        }
+    }
+
+    public void warn(String message) {
+        if (threshold <= Level.WARN.ordinal()) {
+            log(Level.WARN, message, null);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        if (threshold <= Level.WARN.ordinal()) {
+            log(Level.WARN, format(format, arg, null, 1), null);
+        }
+    }
+
+    /**
+     * 参数只替换格式中的{}，异常的消息和堆栈单独输出，不会被当作格式解析
+     */
+    public void warn(String format, Object arg, Throwable throwable) {
+        if (threshold <= Level.WARN.ordinal()) {
+            log(Level.WARN, format(format, arg, null, 1), throwable);
+        }
+    }
+
+    public void error(String message, Throwable throwable) {
+        if (threshold <= Level.ERROR.ordinal()) {
+            log(Level.ERROR, message, throwable);
+        }
+    }
+
+    private void log(Level level, String message, Throwable throwable) {
+        AsyncLogWriter.append(new LogRecord(System.currentTimeMillis(), level, name, Thread.currentThread().getName(), message, throwable));
+    }
+
+    /**
+     * 依次用参数替换{}
+     */
+    static String format(String format, Object arg1, Object arg2, int argCount) {
+        StringBuilder builder = new StringBuilder(format.length() + 32);
+        int start = 0;
+        for (int i = 0; i < argCount; i++) {
+            int index = format.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            builder.append(format, start, index).append(i == 0 ? arg1 : arg2);
+            start = index + 2;
+        }
+        builder.append(format, start, format.length());
+        return builder.toString();
+    }
+}
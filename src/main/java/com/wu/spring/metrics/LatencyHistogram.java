@@ -0,0 +1,121 @@
+package com.wu.spring.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图，单位为微秒。
+ * 采用与HdrHistogram相同的对数-线性分桶：每个2的幂区间再均分为32个子桶，相对误差约3%。
+ * 记录时只做一次原子自增，读取时遍历桶计算分位数。
+ * @author Cactus
+ */
+public class LatencyHistogram {
+    // 每个2的幂区间的子桶个数为2^SUB_BUCKET_BITS
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 可记录的最大值为2^MAX_EXPONENT微秒，约19小时，更大的值记在最后一个桶
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     * @param nanos 纳秒
+     */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /**
+     * 记录一个值
+     * @param micros 微秒
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        buckets.incrementAndGet(indexOf(micros));
+        count.increment();
+        sum.add(micros);
+        long current = max.get();
+        while (micros > current && !max.compareAndSet(current, micros)) {
+            current = max.get();
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        // value >>> shift 落在[32, 64)之间
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return 桶中值的上界
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return 所有值之和，微秒
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return 最大值，微秒
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 计算多个分位数，只遍历一次桶。读取期间仍在记录时结果是近似值。
+     * @param quantiles 升序排列的分位数，如0.5、0.99
+     * @return 对应的值，微秒
+     */
+    public long[] getValuesAtQuantiles(double[] quantiles) {
+        long[] values = new long[quantiles.length];
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return values;
+        }
+        int q = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT && q < quantiles.length; i++) {
+            seen += snapshot[i];
+            while (q < quantiles.length && seen >= Math.ceil(quantiles[q] * total)) {
+                values[q++] = Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,175 @@
+package com.wu.spring.metrics;
+
+import com.alibaba.fastjson.JSON;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * 指标注册表。路由指标在映射handler时创建并保存在handler上，请求时不再查表；
+ * 其他模块的统计值以gauge的形式注册，输出时读取。
+ * @author Cactus
+ */
+public class MetricsRegistry {
+    // 输出的分位数
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    // 按路由名排序输出
+    private static final ConcurrentSkipListMap<String, RouteMetrics> ROUTES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Supplier<? extends Number>> GAUGES = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * @param route 路由名，如GET /user/findUser/{id}
+     * @return 该路由的指标，不存在时创建
+     */
+    public static RouteMetrics forRoute(String route) {
+        RouteMetrics metrics = ROUTES.get(route);
+        if (metrics == null) {
+            metrics = new RouteMetrics(route);
+            RouteMetrics old = ROUTES.putIfAbsent(route, metrics);
+            if (old != null) {
+                metrics = old;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 注册一个统计值
+     * @param name  指标名，使用小写字母和下划线
+     * @param gauge 输出时调用以读取当前值
+     */
+    public static void registerGauge(String name, Supplier<? extends Number> gauge) {
+        GAUGES.put(name, gauge);
+    }
+
+    /**
+     * @return JSON格式的全部指标，耗时单位为微秒
+     */
+    public static String toJson() {
+        List<Map<String, Object>> routes = new ArrayList<>();
+        for (RouteMetrics metrics : ROUTES.values()) {
+            Map<String, Object> route = new LinkedHashMap<>();
+            route.put("route", metrics.getRoute());
+            route.put("requests", metrics.getRequests());
+            route.put("errors", metrics.getErrors());
+            long admitted = metrics.getRateLimitAdmitted();
+            long rejected = metrics.getRateLimitRejected();
+            if (admitted + rejected > 0) {
+                Map<String, Object> rateLimit = new LinkedHashMap<>();
+                rateLimit.put("admitted", admitted);
+                rateLimit.put("rejected", rejected);
+                route.put("rate_limit", rateLimit);
+            }
+            long concurrencyRejected = metrics.getConcurrencyRejected();
+            if (concurrencyRejected > 0) {
+                route.put("concurrency_rejected", concurrencyRejected);
+            }
+            route.put("total", histogramToMap(metrics.getTotal()));
+            route.put("dispatch", histogramToMap(metrics.getDispatch()));
+            route.put("bind", histogramToMap(metrics.getBind()));
+            route.put("invoke", histogramToMap(metrics.getInvoke()));
+            route.put("serialize", histogramToMap(metrics.getSerialize()));
+            routes.add(route);
+        }
+        Map<String, Object> gauges = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<? extends Number>> entry : GAUGES.entrySet()) {
+            gauges.put(entry.getKey(), entry.getValue().get());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("routes", routes);
+        result.put("gauges", gauges);
+        return JSON.toJSONString(result);
+    }
+
+    private static Map<String, Object> histogramToMap(LatencyHistogram histogram) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        long count = histogram.getCount();
+        map.put("count", count);
+        map.put("mean", count == 0 ? 0 : histogram.getSum() / count);
+        long[] values = histogram.getValuesAtQuantiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            map.put(QUANTILE_NAMES[i], values[i]);
+        }
+        map.put("max", histogram.getMax());
+        return map;
+    }
+
+    /**
+     * @return Prometheus文本格式的全部指标，耗时单位为秒
+     */
+    public static String toPrometheus() {
+        StringBuilder builder = new StringBuilder(4096);
+        builder.append("# TYPE myspring_http_requests_total counter\n");
+        for (RouteMetrics metrics : ROUTES.values()) {
+            builder.append("myspring_http_requests_total{route=\"").append(escape(metrics.getRoute())).append("\"} ")
+                    .append(metrics.getRequests()).append('\n');
+        }
+        builder.append("# TYPE myspring_http_errors_total counter\n");
+        for (RouteMetrics metrics : ROUTES.values()) {
+            builder.append("myspring_http_errors_total{route=\"").append(escape(metrics.getRoute())).append("\"} ")
+                    .append(metrics.getErrors()).append('\n');
+        }
+        builder.append("# TYPE myspring_http_rate_limit_total counter\n");
+        for (RouteMetrics metrics : ROUTES.values()) {
+            long admitted = metrics.getRateLimitAdmitted();
+            long rejected = metrics.getRateLimitRejected();
+            if (admitted + rejected == 0) {
+                continue;
+            }
+            String route = escape(metrics.getRoute());
+            builder.append("myspring_http_rate_limit_total{route=\"").append(route).append("\",result=\"admitted\"} ")
+                    .append(admitted).append('\n');
+            builder.append("myspring_http_rate_limit_total{route=\"").append(route).append("\",result=\"rejected\"} ")
+                    .append(rejected).append('\n');
+        }
+        builder.append("# TYPE myspring_http_concurrency_rejected_total counter\n");
+        for (RouteMetrics metrics : ROUTES.values()) {
+            long rejected = metrics.getConcurrencyRejected();
+            if (rejected > 0) {
+                builder.append("myspring_http_concurrency_rejected_total{route=\"").append(escape(metrics.getRoute())).append("\"} ")
+                        .append(rejected).append('\n');
+            }
+        }
+        builder.append("# TYPE myspring_http_request_duration_seconds summary\n");
+        for (RouteMetrics metrics : ROUTES.values()) {
+            String route = escape(metrics.getRoute());
+            appendSummary(builder, route, "total", metrics.getTotal());
+            appendSummary(builder, route, "dispatch", metrics.getDispatch());
+            appendSummary(builder, route, "bind", metrics.getBind());
+            appendSummary(builder, route, "invoke", metrics.getInvoke());
+            appendSummary(builder, route, "serialize", metrics.getSerialize());
+        }
+        for (Map.Entry<String, Supplier<? extends Number>> entry : GAUGES.entrySet()) {
+            builder.append("# TYPE myspring_").append(entry.getKey()).append(" gauge\n");
+            builder.append("myspring_").append(entry.getKey()).append(' ').append(entry.getValue().get()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static void appendSummary(StringBuilder builder, String route, String phase, LatencyHistogram histogram) {
+        String labels = "route=\"" + route + "\",phase=\"" + phase + "\"";
+        long[] values = histogram.getValuesAtQuantiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            builder.append("myspring_http_request_duration_seconds{").append(labels).append(",quantile=\"")
+                    .append(QUANTILES[i]).append("\"} ").append(values[i] / 1e6).append('\n');
+        }
+        builder.append("myspring_http_request_duration_seconds_sum{").append(labels).append("} ")
+                .append(histogram.getSum() / 1e6).append('\n');
+        builder.append("myspring_http_request_duration_seconds_count{").append(labels).append("} ")
+                .append(histogram.getCount()).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,121 @@
+package com.wu.spring.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个路由的请求计数和各阶段耗时
+ * @author Cactus
+ */
+public class RouteMetrics {
+    private final String route;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // 通过和被拒绝的限流请求数，路由没有限流时均为0
+    private final LongAdder rateLimitAdmitted = new LongAdder();
+    private final LongAdder rateLimitRejected = new LongAdder();
+    // 因达到并发上限被拒绝的请求数
+    private final LongAdder concurrencyRejected = new LongAdder();
+    // 查找handler和适配器
+    private final LatencyHistogram dispatch = new LatencyHistogram();
+    // 参数绑定
+    private final LatencyHistogram bind = new LatencyHistogram();
+    // 调用控制器方法
+    private final LatencyHistogram invoke = new LatencyHistogram();
+    // 序列化并写出响应
+    private final LatencyHistogram serialize = new LatencyHistogram();
+    // 整个请求
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    RouteMetrics(String route) {
+        this.route = route;
+    }
+
+    /**
+     * 记录一次请求各阶段的耗时，时间均为System.nanoTime()
+     * @param start       开始处理请求
+     * @param dispatched  找到handler
+     * @param bound       参数绑定完成
+     * @param invoked     控制器方法返回
+     * @param end         响应写出完成
+     */
+    public void record(long start, long dispatched, long bound, long invoked, long end) {
+        requests.increment();
+        dispatch.recordNanos(dispatched - start);
+        bind.recordNanos(bound - dispatched);
+        invoke.recordNanos(invoked - bound);
+        serialize.recordNanos(end - invoked);
+        total.recordNanos(end - start);
+    }
+
+    /**
+     * 记录一次未经过handler的请求，如缓存命中、静态资源和404
+     */
+    public void recordTotal(long start, long end) {
+        requests.increment();
+        total.recordNanos(end - start);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * 记录一次限流判断的结果
+     * @param admitted 是否通过
+     */
+    public void recordRateLimit(boolean admitted) {
+        if (admitted) {
+            rateLimitAdmitted.increment();
+        } else {
+            rateLimitRejected.increment();
+        }
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public void recordConcurrencyRejected() {
+        concurrencyRejected.increment();
+    }
+
+    public long getConcurrencyRejected() {
+        return concurrencyRejected.sum();
+    }
+
+    public long getRateLimitAdmitted() {
+        return rateLimitAdmitted.sum();
+    }
+
+    public long getRateLimitRejected() {
+        return rateLimitRejected.sum();
+    }
+
+    public LatencyHistogram getDispatch() {
+        return dispatch;
+    }
+
+    public LatencyHistogram getBind() {
+        return bind;
+    }
+
+    public LatencyHistogram getInvoke() {
+        return invoke;
+    }
+
+    public LatencyHistogram getSerialize() {
+        return serialize;
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+}
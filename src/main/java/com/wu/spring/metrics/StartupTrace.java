@@ -0,0 +1,47 @@
+package com.wu.spring.metrics;
+
+import com.wu.spring.log.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 启动各阶段的耗时。每个阶段结束时输出一行INFO日志，并以startup_<阶段>_millis注册为gauge
+ * @author Cactus
+ */
+public class StartupTrace {
+    private static final Logger LOGGER = Logger.getLogger(StartupTrace.class);
+    // 按完成顺序保存各阶段的毫秒数
+    private static final Map<String, Long> PHASES = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+
+    private StartupTrace() {
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     * @param phase      阶段名，使用小写字母和下划线
+     * @param startNanos 阶段开始时的System.nanoTime()
+     */
+    public static void record(String phase, long startNanos) {
+        final long millis = (System.nanoTime() - startNanos) / 1000000;
+        PHASES.put(phase, millis);
+        MetricsRegistry.registerGauge("startup_" + phase + "_millis", new Supplier<Long>() {
+            @Override
+            public Long get() {
+                return millis;
+            }
+        });
+        LOGGER.info("启动阶段 {} 耗时{}ms", phase, millis);
+    }
+
+    /**
+     * @return 已完成的阶段及其毫秒数
+     */
+    public static Map<String, Long> getPhases() {
+        synchronized (PHASES) {
+            return new LinkedHashMap<>(PHASES);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.wu.spring.mvc;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * 参数绑定器，每个handler方法的每个参数在启动时对应一个绑定器，
+ * 请求时只需依次调用绑定器即可得到参数值，不再进行反射查找。
+ * @author Cactus
+ */
+public interface ArgumentBinder {
+    /**
+     * @param request       请求
+     * @param response      响应
+     * @param pathVariables 路径变量
+     * @return 该位置的参数值
+     * @throws Exception 绑定异常
+     */
+    Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) throws Exception;
+}
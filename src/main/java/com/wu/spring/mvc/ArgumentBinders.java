@@ -0,0 +1,214 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.annotation.mvc.PathVariable;
+import com.wu.spring.annotation.mvc.RequestBody;
+import com.wu.spring.annotation.mvc.RequestParam;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 在启动时把handler方法的参数编译为绑定器数组
+ * @author Cactus
+ */
+public class ArgumentBinders {
+    // 无法识别的参数一律绑定为null
+    private static final ArgumentBinder NULL_BINDER = new ArgumentBinder() {
+        @Override
+        public Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) {
+            return null;
+        }
+    };
+
+    private static final ArgumentBinder REQUEST_BINDER = new ArgumentBinder() {
+        @Override
+        public Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) {
+            return request;
+        }
+    };
+
+    private static final ArgumentBinder RESPONSE_BINDER = new ArgumentBinder() {
+        @Override
+        public Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) {
+            return response;
+        }
+    };
+
+    private static final TypeConverter STRING_CONVERTER = new TypeConverter() {
+        @Override
+        public Object convert(String value) {
+            return value;
+        }
+    };
+
+    private static final TypeConverter INTEGER_CONVERTER = new TypeConverter() {
+        @Override
+        public Object convert(String value) {
+            return Integer.valueOf(value);
+        }
+    };
+
+    private static final TypeConverter NULL_CONVERTER = new TypeConverter() {
+        @Override
+        public Object convert(String value) {
+            return null;
+        }
+    };
+
+    private ArgumentBinders() {
+    }
+
+    /**
+     * 为方法的每个参数生成绑定器
+     * @param method handler方法
+     * @return 不可变的绑定器数组，下标即参数位置
+     */
+    public static ArgumentBinder[] forMethod(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        //因为每个参数上面是可以加多个注解的，所以是二维数组,第一位表示参数位置，第二位表示注解个数
+        Annotation[][] pa = method.getParameterAnnotations();
+        ArgumentBinder[] binders = new ArgumentBinder[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            binders[i] = forParameter(parameterTypes[i], pa[i]);
+        }
+        return binders;
+    }
+
+    private static ArgumentBinder forParameter(Class<?> type, Annotation[] annotations) {
+        if (type == HttpServletRequest.class) {
+            return REQUEST_BINDER;
+        }
+        if (type == HttpServletResponse.class) {
+            return RESPONSE_BINDER;
+        }
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof RequestBody) {
+                return new RequestBodyBinder(type);
+            } else if (annotation instanceof RequestParam) {
+                RequestParam requestParam = (RequestParam) annotation;
+                if (!"".equals(requestParam.value().trim())) {
+                    return new RequestParamBinder(requestParam.value(), requestParam.defaultValue(), converterFor(type));
+                }
+            } else if (annotation instanceof PathVariable) {
+                PathVariable pathVariable = (PathVariable) annotation;
+                if (!"".equals(pathVariable.value().trim())) {
+                    return new PathVariableBinder(pathVariable.value(), pathVariable.defaultValue(), converterFor(type));
+                }
+            }
+        }
+        return NULL_BINDER;
+    }
+
+    /**
+     * 根据参数类型选择类型转换器
+     * @param type 方法要求的参数类型
+     * @return 类型转换器
+     */
+    static TypeConverter converterFor(Class<?> type) {
+        if (type == String.class) {
+            return STRING_CONVERTER;
+        } else if (type == Integer.class || type == int.class) {
+            return INTEGER_CONVERTER;
+        } else {
+            return NULL_CONVERTER;
+        }
+    }
+
+    /**
+     * 取出请求参数，多值参数用","拼接
+     * @return 参数不存在时返回null
+     */
+    private static String getParameter(HttpServletRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        if (values == null) {
+            return null;
+        }
+        if (values.length == 1) {
+            return values[0];
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 绑定@RequestParam参数
+     */
+    private static class RequestParamBinder implements ArgumentBinder {
+        private final String name;
+        private final String defaultValue;
+        private final TypeConverter converter;
+
+        RequestParamBinder(String name, String defaultValue, TypeConverter converter) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.converter = converter;
+        }
+
+        @Override
+        public Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) {
+            String value = getParameter(request, name);
+            if (value == null) {
+                // 未传该参数时使用注解上的默认值
+                return defaultValue;
+            }
+            return converter.convert(value);
+        }
+    }
+
+    /**
+     * 绑定@PathVariable参数，同名的请求参数优先
+     */
+    private static class PathVariableBinder implements ArgumentBinder {
+        private final String name;
+        private final String defaultValue;
+        private final TypeConverter converter;
+
+        PathVariableBinder(String name, String defaultValue, TypeConverter converter) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.converter = converter;
+        }
+
+        @Override
+        public Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) {
+            String value = getParameter(request, name);
+            if (value == null && pathVariables != null) {
+                value = pathVariables.get(name);
+            }
+            if (value == null) {
+                value = defaultValue;
+            }
+            return converter.convert(value);
+        }
+    }
+
+    /**
+     * 绑定@RequestBody参数，只有声明了该注解的handler才会读取请求体
+     */
+    private static class RequestBodyBinder implements ArgumentBinder {
+        private final Class<?> type;
+
+        RequestBodyBinder(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Object bind(HttpServletRequest request, HttpServletResponse response, Map<String, String> pathVariables) throws IOException {
+            if (!"POST".equals(request.getMethod())) {
+                return null;
+            }
+            // 直接从输入流解析body，将body中的参数放入对应位置。
+            return RequestBodyReader.readJson(request, type);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.wu.spring.mvc;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 异步请求结束时回调一次。
+ * 异步handler和非阻塞写出在容器线程返回后才真正结束，耗时、并发数和拦截器的afterCompletion要在这里处理。
+ * 超时、连接出错、异步结果出错或响应状态码为5xx时视为失败。
+ * @author Cactus
+ */
+abstract class AsyncCompletion implements AsyncListener {
+    // 异步结果出错时记录的异常
+    private static final String EXCEPTION_ATTRIBUTE = AsyncCompletion.class.getName() + ".EXCEPTION";
+
+    private final AtomicBoolean done = new AtomicBoolean(false);
+    private HttpServletRequest request;
+
+    /**
+     * 请求已进入异步模式时登记回调
+     * @param request  请求
+     * @param listener 回调
+     * @return 是否已登记，请求不是异步时返回false，由调用方立即处理
+     */
+    static boolean register(HttpServletRequest request, AsyncCompletion listener) {
+        if (!request.isAsyncStarted()) {
+            return false;
+        }
+        listener.request = request;
+        request.getAsyncContext().addListener(listener);
+        return true;
+    }
+
+    /**
+     * 记录异步结果的异常，结束时交给回调
+     * @param request 请求
+     * @param error   handler或写出响应时抛出的异常
+     */
+    static void setException(ServletRequest request, Throwable error) {
+        request.setAttribute(EXCEPTION_ATTRIBUTE, error instanceof Exception ? error : new ExecutionException(error));
+    }
+
+    /**
+     * @param end    异步请求结束的时间，System.nanoTime()
+     * @param failed 是否失败
+     * @param ex     失败的原因，超时为TimeoutException，只是状态码为5xx或没有异常时为null
+     */
+    protected abstract void completed(long end, boolean failed, Exception ex);
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        Exception ex = getException();
+        boolean failed = ex != null;
+        if (event.getSuppliedResponse() instanceof HttpServletResponse) {
+            failed |= ((HttpServletResponse) event.getSuppliedResponse()).getStatus() >= 500;
+        }
+        finish(failed, ex);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        Exception ex = getException();
+        finish(true, ex != null ? ex : new TimeoutException("异步请求超时"));
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        Throwable error = event.getThrowable();
+        Exception ex = getException();
+        if (ex == null && error != null) {
+            ex = error instanceof Exception ? (Exception) error : new ExecutionException(error);
+        }
+        finish(true, ex);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // 再次startAsync时监听器会被清空，需要重新登记
+        event.getAsyncContext().addListener(this);
+    }
+
+    private Exception getException() {
+        return request != null ? (Exception) request.getAttribute(EXCEPTION_ATTRIBUTE) : null;
+    }
+
+    private void finish(boolean failed, Exception ex) {
+        if (done.compareAndSet(false, true)) {
+            completed(System.nanoTime(), failed, ex);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.tomcat.RequestExecutors;
+import com.wu.spring.utils.ConfigUtil;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * 异步响应策略，handler返回CompletionStage或Callable时使用。
+ * 开启AsyncContext后立即归还容器线程，结果就绪后在完成结果的线程上执行拦截器的postHandle，再交给实际的响应策略写出。
+ * 异步结果出错时记录异常，拦截器的afterCompletion在异步请求结束时拿到该异常。
+ * Callable在独立的有界线程池中执行，不占用连接器的线程，排队已满时返回503。
+ * @author Cactus
+ */
+class AsyncStrategy implements ResponseStrategy {
+    // 异步请求超时毫秒数
+    private static final long TIMEOUT = ConfigUtil.getMvcAsyncTimeout();
+
+    private static volatile ExecutorService executor = null;
+
+    // 结果就绪后使用的响应策略
+    private final ResponseStrategy delegate;
+
+    AsyncStrategy(ResponseStrategy delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param type handler方法声明的返回类型
+     * @return 是否需要按异步方式处理
+     */
+    static boolean isAsyncType(Class<?> type) {
+        return CompletionStage.class.isAssignableFrom(type) || Callable.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        if (data == null) {
+            delegate.handle(null, request, response);
+            return;
+        }
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(TIMEOUT);
+        AsyncResult result = new AsyncResult(asyncContext, request, response);
+        asyncContext.addListener(result);
+        if (data instanceof CompletionStage) {
+            CompletionStage<?> stage = (CompletionStage<?>) data;
+            result.future = stage instanceof Future ? (Future<?>) stage : null;
+            stage.whenComplete(result);
+        } else {
+            final Callable<?> callable = (Callable<?>) data;
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            future.whenComplete(result);
+            try {
+                result.future = submit(callable, future);
+            } catch (RejectedExecutionException e) {
+                AsyncCompletion.setException(request, e);
+                result.reject();
+            }
+        }
+    }
+
+    /**
+     * 在异步执行器上执行Callable，结果写入future
+     * @return 用于超时时取消任务
+     * @throws RejectedExecutionException 线程和队列都已占满
+     */
+    private static Future<?> submit(final Callable<?> callable, final CompletableFuture<Object> future) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    future.complete(callable.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        };
+        return getExecutor().submit(task);
+    }
+
+    /**
+     * 独立的有界线程池，慢的Callable只占用该线程池，不会耗尽连接器的线程
+     */
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (AsyncStrategy.class) {
+                if (executor == null) {
+                    int threads = ConfigUtil.getMvcAsyncThreads();
+                    if (threads <= 0) {
+                        threads = Runtime.getRuntime().availableProcessors() * 2;
+                    }
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<Runnable>(Math.max(1, ConfigUtil.getMvcAsyncQueueSize())),
+                            RequestExecutors.namedThreadFactory("myspring-async-", true),
+                            new ThreadPoolExecutor.AbortPolicy());
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 一次异步请求的收尾：结果就绪或超时，只有先到的一方写出响应
+     */
+    private class AsyncResult implements BiConsumer<Object, Throwable>, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private volatile Future<?> future;
+
+        AsyncResult(AsyncContext asyncContext, HttpServletRequest request, HttpServletResponse response) {
+            this.asyncContext = asyncContext;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void accept(Object value, Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (error == null) {
+                    InterceptorChain chain = InterceptorChain.get(request);
+                    if (chain != null) {
+                        chain.applyPostHandle(request, response, value);
+                    }
+                    delegate.handle(value, request, response);
+                } else {
+                    Throwable cause = unwrap(error);
+                    AsyncCompletion.setException(request, cause);
+                    writeError(cause);
+                }
+            } catch (Exception e) {
+                AsyncCompletion.setException(request, e);
+                try {
+                    writeError(e);
+                } catch (IOException ignored) {
+                    // 连接已断开
+                }
+            } finally {
+                // 非阻塞写出时由WriteListener在写完后结束
+                if (!NonBlockingResponseWriter.isWriting(request)) {
+                    asyncContext.complete();
+                }
+            }
+        }
+
+        /**
+         * 线程池已满，直接返回503
+         */
+        void reject() throws IOException {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.getWriter().write("503 Async Executor Busy");
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            if (future != null) {
+                future.cancel(true);
+            }
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.getWriter().write("503 Async Request Timeout");
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // 连接出错时不再写出结果
+            finished.set(true);
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void writeError(Throwable e) throws IOException {
+            if (response.isCommitted()) {
+                return;
+            }
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.getWriter().write("500 Exception, Msg :" + Arrays.toString(e.getStackTrace()));
+        }
+
+        private Throwable unwrap(Throwable error) {
+            while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+                error = error.getCause();
+            }
+            return error;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.wu.spring.mvc;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * 把响应体暂存在内存中的响应包装，响应头仍直接设置到实际响应上。
+ * 用于在写出前拿到完整的响应字节放入缓存。
+ * @author Cactus
+ */
+public class CachingResponseWrapper extends HttpServletResponseWrapper {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    private int status = SC_OK;
+    // 发生了重定向或错误时不缓存
+    private boolean cacheable = true;
+
+    public CachingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new IllegalStateException("缓存的响应只能阻塞写出");
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        body.reset();
+        status = SC_OK;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // 写出时按实际字节数设置
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        super.setStatus(sc);
+        status = sc;
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        cacheable = false;
+        status = sc;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        cacheable = false;
+        status = sc;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        cacheable = false;
+        status = SC_FOUND;
+        super.sendRedirect(location);
+    }
+
+    /**
+     * @return 是否为可以缓存的200响应
+     */
+    public boolean isCacheable() {
+        return cacheable && status == SC_OK;
+    }
+
+    /**
+     * @return 已写入的响应体
+     */
+    public byte[] getBody() {
+        flushBuffer();
+        return body.toByteArray();
+    }
+
+    /**
+     * 把暂存的响应体写入实际响应
+     */
+    public void writeTo(byte[] bytes) throws IOException {
+        if (!cacheable) {
+            // 重定向或错误已由实际响应处理
+            return;
+        }
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setContentLength(bytes.length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(bytes);
+        out.flush();
+    }
+}
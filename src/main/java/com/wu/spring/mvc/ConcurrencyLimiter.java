@@ -0,0 +1,205 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.annotation.mvc.ConcurrencyLimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并发上限（舱壁），在映射handler时根据@ConcurrencyLimit创建。
+ * 进入时用CAS增加在途请求数，达到上限立即失败；结束时按耗时和是否出错调整上限。
+ * 自适应方式下同一时刻只有一个线程调整上限，其余线程跳过本次样本，请求线程不会因此等待。
+ * @author Cactus
+ */
+abstract class ConcurrencyLimiter {
+    // 在途请求数
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 当前上限
+    protected volatile int limit;
+
+    protected ConcurrencyLimiter(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 根据注解创建对应方式的并发上限
+     */
+    static ConcurrencyLimiter create(ConcurrencyLimit concurrencyLimit) {
+        switch (concurrencyLimit.algorithm()) {
+            case AIMD:
+                return new AimdLimiter(concurrencyLimit);
+            case GRADIENT:
+                return new GradientLimiter(concurrencyLimit);
+            default:
+                return new FixedLimiter(concurrencyLimit.limit());
+        }
+    }
+
+    /**
+     * @return 未达到上限时占用一个位置并返回true
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放位置并提交一个样本
+     * @param rttNanos 请求耗时
+     * @param failed   处理过程中是否抛出了异常
+     */
+    void release(long rttNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        onSample(rttNanos, current, failed);
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @param rttNanos 请求耗时
+     * @param inFlight 该请求结束前的在途请求数
+     * @param failed   是否出错
+     */
+    protected abstract void onSample(long rttNanos, int inFlight, boolean failed);
+
+    /**
+     * 固定上限
+     */
+    private static class FixedLimiter extends ConcurrencyLimiter {
+        FixedLimiter(int limit) {
+            super(limit);
+        }
+
+        @Override
+        protected void onSample(long rttNanos, int inFlight, boolean failed) {
+        }
+    }
+
+    /**
+     * 自适应上限的公共部分：限制上下界，保证同一时刻只有一个线程调整
+     */
+    private abstract static class AdaptiveLimiter extends ConcurrencyLimiter {
+        protected final int minLimit;
+        protected final int maxLimit;
+        private final AtomicBoolean updating = new AtomicBoolean(false);
+
+        AdaptiveLimiter(ConcurrencyLimit concurrencyLimit) {
+            super(Math.max(concurrencyLimit.minLimit(), Math.min(concurrencyLimit.maxLimit(), concurrencyLimit.limit())));
+            this.minLimit = Math.max(1, concurrencyLimit.minLimit());
+            this.maxLimit = Math.max(minLimit, concurrencyLimit.maxLimit());
+        }
+
+        @Override
+        protected void onSample(long rttNanos, int inFlight, boolean failed) {
+            if (!updating.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                update(rttNanos, inFlight, failed);
+            } finally {
+                updating.set(false);
+            }
+        }
+
+        /**
+         * 在持有调整权的线程中执行
+         */
+        protected abstract void update(long rttNanos, int inFlight, boolean failed);
+
+        protected int clamp(double value) {
+            return (int) Math.max(minLimit, Math.min(maxLimit, value));
+        }
+    }
+
+    /**
+     * 加性增、乘性减。只有在途请求数接近上限时才增加，避免流量较低时上限虚高
+     */
+    private static class AimdLimiter extends AdaptiveLimiter {
+        // 过载时上限乘以该系数
+        private static final double BACKOFF_RATIO = 0.9;
+
+        private final long thresholdNanos;
+
+        AimdLimiter(ConcurrencyLimit concurrencyLimit) {
+            super(concurrencyLimit);
+            this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(concurrencyLimit.latencyThresholdMillis());
+        }
+
+        @Override
+        protected void update(long rttNanos, int inFlight, boolean failed) {
+            int current = limit;
+            if (failed || rttNanos > thresholdNanos) {
+                limit = clamp(Math.floor(current * BACKOFF_RATIO));
+            } else if (inFlight * 2 >= current) {
+                limit = clamp(current + 1);
+            }
+        }
+    }
+
+    /**
+     * 以长期平均耗时作为无负载耗时的估计，近期耗时上升说明请求开始排队，按两者之比收缩上限；
+     * 耗时平稳时每次增加约sqrt(上限)的余量，新上限与旧上限加权平均后生效
+     */
+    private static class GradientLimiter extends AdaptiveLimiter {
+        // 长期和近期平均耗时的样本窗口
+        private static final double LONG_WINDOW = 600;
+        private static final double SHORT_WINDOW = 10;
+        // 近期耗时不超过长期耗时的该倍数时视为平稳
+        private static final double TOLERANCE = 1.5;
+        // 新上限的权重
+        private static final double SMOOTHING = 0.2;
+        private static final double BACKOFF_RATIO = 0.9;
+
+        private double longRtt = 0;
+        private double shortRtt = 0;
+        private double estimatedLimit;
+
+        GradientLimiter(ConcurrencyLimit concurrencyLimit) {
+            super(concurrencyLimit);
+            this.estimatedLimit = limit;
+        }
+
+        @Override
+        protected void update(long rttNanos, int inFlight, boolean failed) {
+            if (failed) {
+                // 出错的请求往往很快返回，不计入耗时
+                estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+                limit = clamp(estimatedLimit);
+                return;
+            }
+            if (longRtt == 0) {
+                longRtt = rttNanos;
+                shortRtt = rttNanos;
+            } else {
+                longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+                shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+            }
+            // 恢复后近期耗时明显低于长期耗时，长期耗时跟着回落
+            if (longRtt > shortRtt * 2) {
+                longRtt = shortRtt * 2;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            if (gradient == 1.0 && inFlight * 2 < estimatedLimit) {
+                // 流量未接近上限，不再增长
+                return;
+            }
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+            limit = clamp(estimatedLimit);
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package com.wu.spring.mvc;
 
 import com.wu.mybatis.core.MapperHelper;
-import com.wu.spring.annotation.mvc.PathVariable;
+import com.wu.spring.annotation.mvc.Cacheable;
+import com.wu.spring.annotation.mvc.ConcurrencyLimit;
+import com.wu.spring.annotation.mvc.RateLimit;
 import com.wu.spring.annotation.mvc.RequestMapping;
-import com.wu.spring.annotation.mvc.RequestParam;
-import com.wu.spring.annotation.mvc.ResponseBody;
 import com.wu.spring.aop.AOPHelper;
 import com.wu.spring.constants.RequestMethod;
 import com.wu.spring.ioc.ClassSetHelper;
 import com.wu.spring.ioc.DefaultBeanFactory;
+import com.wu.spring.log.Logger;
+import com.wu.spring.metrics.MetricsRegistry;
+import com.wu.spring.metrics.RouteMetrics;
+import com.wu.spring.metrics.StartupTrace;
 import com.wu.spring.utils.ConfigUtil;
+import freemarker.cache.MruCacheStorage;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateExceptionHandler;
 
@@ -20,23 +25,37 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class DispatcherServlet extends HttpServlet {
+    private static final Logger LOGGER = Logger.getLogger(DispatcherServlet.class);
     //bean工厂
     private static DefaultBeanFactory beanFactory = DefaultBeanFactory.getInstance();
     //请求到Handler的映射
     private Map<Request, Handler> handlerMapping = new HashMap<>();
+    //由handlerMapping编译得到的路由前缀树，请求时通过它查找handler
+    private RouteTrie routeTrie = new RouteTrie();
     //Handler到Handler的映射
     private Map<Handler, HandlerAdapter> adapterMapping = new HashMap<>();
+    //拦截器注册表，只在映射handler时使用
+    private InterceptorRegistry interceptorRegistry = new InterceptorRegistry();
     //FreeMarker配置对象
     private Configuration cfg = null;
+    //静态资源处理器
+    private StaticResourceHandler staticResourceHandler = null;
+    //指标的访问路径，为空时不提供
+    private String metricsPath = ConfigUtil.getMvcMetricsPath();
+    //静态资源和未找到handler的请求统计
+    private static final RouteMetrics STATIC_METRICS = MetricsRegistry.forRoute("static");
+    private static final RouteMetrics NOT_FOUND_METRICS = MetricsRegistry.forRoute("not_found");
+    //HttpServletResponse中没有429的常量
+    private static final int SC_TOO_MANY_REQUESTS = 429;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -44,7 +63,9 @@ public class DispatcherServlet extends HttpServlet {
             // 初始化 这两个类。
             Class.forName(AOPHelper.class.getName());
             Class.forName(MapperHelper.class.getName());
+            long start = System.nanoTime();
             beanFactory.refresh();
+            StartupTrace.record("bean_factory_refresh", start);
         } catch (ClassNotFoundException e1) {
             // 捕捉这两个类不存在的异常
             e1.printStackTrace();
@@ -62,13 +83,20 @@ public class DispatcherServlet extends HttpServlet {
         try {
             //解析url和Method的关联关系
             // 匹配请求以及handler.
+            // 响应策略依赖Freemarker配置，需要先初始化
+            long start = System.nanoTime();
+            initFreemarkerResolver();
+            StartupTrace.record("init_freemarker_resolver", start);
+            start = System.nanoTime();
             initHandlerMappings();
-            System.out.println("initHandlerMappings...");
+            StartupTrace.record("init_handler_mappings", start);
             //适配器（匹配的过程）
+            start = System.nanoTime();
             initHandlerAdapters();
-            System.out.println("initHandlerAdapters...");
-            initFreemarkerResolver();
-            System.out.println("InitFreemarkerResolver...");
+            StartupTrace.record("init_handler_adapters", start);
+            start = System.nanoTime();
+            initStaticResourceHandler();
+            StartupTrace.record("init_static_resource_handler", start);
         } catch (Exception e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
@@ -84,6 +112,7 @@ public class DispatcherServlet extends HttpServlet {
         if (beanFactory.isEmpty()) {
             throw new Exception("ioc容器未初始化");
         }
+        initInterceptors();
         // 获得有Controller注解的类集合
         Set<Class<?>> classSet = ClassSetHelper.getControllerClassSet();
         for (Class<?> clazz : classSet) {
@@ -97,6 +126,12 @@ public class DispatcherServlet extends HttpServlet {
                 // 该注解规定的请求方法，默认为GET, 如果具体方法是post，则需要更改。
                 requestMethod = requestMapping.method();
             }
+            // 控制器上的并发上限由该控制器的所有handler共用
+            ConcurrencyLimiter controllerLimiter = null;
+            if (clazz.isAnnotationPresent(ConcurrencyLimit.class)) {
+                controllerLimiter = ConcurrencyLimiter.create(clazz.getAnnotation(ConcurrencyLimit.class));
+                registerLimiterGauges(clazz.getSimpleName(), controllerLimiter);
+            }
             //当找到了Controller类后，接下来就要找每个url对应的handler,即方法。
             Method[] methods = clazz.getMethods();
             //找到有RequestMapping注解的方法，然后放进handler集合中。
@@ -113,10 +148,70 @@ public class DispatcherServlet extends HttpServlet {
                 Request req = new Request(requestMethod, url2);
                 // handler实际上是个处理器，记录着对应的类对象以及处理方法
                 Handler handler = new Handler(beanFactory.getBean(clazz), method);
+                // 根据方法声明确定响应策略
+                handler.responseStrategy = ResponseStrategies.forHandler(clazz, method, cfg);
+                if (method.isAnnotationPresent(Cacheable.class)) {
+                    if (requestMethod != RequestMethod.GET || AsyncStrategy.isAsyncType(method.getReturnType())) {
+                        LOGGER.warn("@Cacheable只对同步的GET handler生效，忽略: {}", method);
+                    } else {
+                        handler.responseCache = new ResponseCache(method.getAnnotation(Cacheable.class));
+                    }
+                }
+                if (method.isAnnotationPresent(RateLimit.class)) {
+                    try {
+                        handler.rateLimiter = new RateLimiter(method.getAnnotation(RateLimit.class));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(e.getMessage() + ", handler: " + method, e);
+                    }
+                }
+                if (method.isAnnotationPresent(ConcurrencyLimit.class)) {
+                    handler.concurrencyLimiter = ConcurrencyLimiter.create(method.getAnnotation(ConcurrencyLimit.class));
+                    registerLimiterGauges(clazz.getSimpleName() + "_" + method.getName(), handler.concurrencyLimiter);
+                } else {
+                    handler.concurrencyLimiter = controllerLimiter;
+                }
                 // 将handler和请求对应保存至map中
                 // req 作为key，handler作为value.
                 handlerMapping.put(req, handler);
-                System.out.println("Mapping: " + url2 + " to  :" + method.toString());
+                routeTrie.register(requestMethod, url2, handler);
+                handler.metrics = MetricsRegistry.forRoute(requestMethod + " " + url2);
+                // 拦截器按路由模板匹配，请求时不再匹配路径
+                handler.interceptors = interceptorRegistry.getInterceptors(url2);
+                LOGGER.info("Mapping: {} to  :{}", url2, method);
+            }
+        }
+    }
+
+    /**
+     * 注册并发上限的当前上限和在途请求数
+     *
+     * @param name 控制器名或控制器名_方法名
+     */
+    private void registerLimiterGauges(String name, final ConcurrencyLimiter limiter) {
+        String gaugeName = name.replaceAll("[^A-Za-z0-9_]", "_").toLowerCase();
+        MetricsRegistry.registerGauge("concurrency_limit_" + gaugeName, new Supplier<Integer>() {
+            @Override
+            public Integer get() {
+                return limiter.getLimit();
+            }
+        });
+        MetricsRegistry.registerGauge("concurrency_in_flight_" + gaugeName, new Supplier<Integer>() {
+            @Override
+            public Integer get() {
+                return limiter.getInFlight();
+            }
+        });
+    }
+
+    /**
+     * 调用所有InterceptorConfigurer注册拦截器
+     */
+    private void initInterceptors() {
+        for (Class<?> clazz : ClassSetHelper.getBeanClassSet()) {
+            if (InterceptorConfigurer.class.isAssignableFrom(clazz)) {
+                InterceptorConfigurer configurer = (InterceptorConfigurer) beanFactory.getBean(clazz);
+                configurer.addInterceptors(interceptorRegistry);
+                LOGGER.info("注册拦截器: {}", clazz.getName());
             }
         }
     }
@@ -125,60 +220,66 @@ public class DispatcherServlet extends HttpServlet {
         if (handlerMapping.isEmpty()) {
             throw new Exception("handlerMapping 未初始化");
         }
-        // 参数类型作为key，参数的索引号作为值进行对应。
-        Map<String, Integer> paramMapping = null;
-        for (Map.Entry<Request, Handler> entry : handlerMapping.entrySet()) {
-            // 为每个handler 都进行参数的匹配
-            paramMapping = new HashMap<String, Integer>();
-            Request req = entry.getKey();
-            Handler handler = entry.getValue();
-            Class<?>[] parameterTypes = handler.method.getParameterTypes();
-            //有顺序，但是通过反射，没法拿到我们参数名字
-            //因为每个参数上面是可以加多个注解的，所以是二维数组,第一位表示参数位置，第二位表示注解个数
-            Annotation[][] pa = handler.method.getParameterAnnotations();
-            //匹配自定参数列表
-            // 表示参数的位置，用索引i表示
-            // 如loginout(@RequestParam(value = "username") String username) 这里的位置为1，因为只有一个参数，注解也只有一个，为@RequestParam
-            for (int i = 0; i < pa.length; i++) {
-                // 该参数位置的参数类型。
-                Class<?> type = parameterTypes[i];
-                if (type == HttpServletRequest.class || type == HttpServletResponse.class) {
-                    paramMapping.put(type.getName(), i);
-                    continue;
-                }
-                // 获得该参数位置的所有注解。注解的值进行一一匹配。
-                for (Annotation annotation : pa[i]) {
-                    String paramName;
-                    if (annotation instanceof RequestParam) {
-                        paramName = ((RequestParam) annotation).value();
-                        // 判断参数是否为空。不为空则将参数与位置对应存储
-                        if (!"".equals(paramName.trim())) {
-                            paramMapping.put(paramName, i);
-                        }
-                    } else if (annotation instanceof PathVariable) {
-                        paramName = ((PathVariable) annotation).value();
-                        if (!"".equals(paramName.trim())) {
-                            paramMapping.put(paramName, i);
-                        }
-                    } else if (annotation instanceof ResponseBody) {
-                        paramMapping.put("ResponseBody", i);
-                    }
-                }
-            }
-            adapterMapping.put(handler, new HandlerAdapter(paramMapping));
+        for (Handler handler : handlerMapping.values()) {
+            // 为每个handler 都生成参数绑定器和方法调用器
+            adapterMapping.put(handler, new HandlerAdapter(ArgumentBinders.forMethod(handler.method), HandlerInvokers.create(handler)));
         }
     }
 
     /**
-     * Freemarker的初始化配置
+     * Freemarker的初始化配置，并按配置预先解析全部模板
      *
      * @throws Exception
      */
     private void initFreemarkerResolver() throws Exception {
+        File templateDirectory = new File(this.getClass().getResource("/").getPath() + ConfigUtil.getAppJspPath());
         cfg = new Configuration(Configuration.VERSION_2_3_22);
-        cfg.setDirectoryForTemplateLoading(new File(this.getClass().getResource("/").getPath() + ConfigUtil.getAppJspPath()));
+        cfg.setTemplateLoader(FreemarkerTemplates.createTemplateLoader(templateDirectory));
         cfg.setDefaultEncoding("UTF-8");
         cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        // 模板不区分语言，不再按locale依次查找多个文件
+        cfg.setLocalizedLookup(false);
+        int cacheSize = ConfigUtil.getMvcTemplateCacheSize();
+        cfg.setCacheStorage(new MruCacheStorage(cacheSize, cacheSize));
+        long updateDelay = ConfigUtil.getMvcTemplateUpdateDelay();
+        // 小于0时不再检查模板文件是否修改
+        cfg.setTemplateUpdateDelayMilliseconds(updateDelay < 0 ? Long.MAX_VALUE : updateDelay);
+        MetricsRegistry.registerGauge("template_cache_hits", new Supplier<Long>() {
+            @Override
+            public Long get() {
+                return FreemarkerTemplates.getCacheHits();
+            }
+        });
+        MetricsRegistry.registerGauge("template_cache_misses", new Supplier<Long>() {
+            @Override
+            public Long get() {
+                return FreemarkerTemplates.getCacheMisses();
+            }
+        });
+        MetricsRegistry.registerGauge("template_parse_millis", new Supplier<Long>() {
+            @Override
+            public Long get() {
+                return FreemarkerTemplates.getParseTimeMillis();
+            }
+        });
+        if (ConfigUtil.getMvcTemplateWarmUp()) {
+            long start = System.currentTimeMillis();
+            int parsed = FreemarkerTemplates.warmUp(cfg, templateDirectory);
+            LOGGER.info("模板预热完成: {}个模板, 耗时{}ms", parsed, System.currentTimeMillis() - start);
+            if (parsed > cacheSize) {
+                LOGGER.warn("模板个数超过缓存大小{}，部分模板会被淘汰后重新解析", cacheSize);
+            }
+        }
+    }
+
+    /**
+     * 静态资源与Freemarker模板一样放在classpath下，目录即静态资源路径
+     *
+     * @throws IOException
+     */
+    private void initStaticResourceHandler() throws IOException {
+        String assetPath = ConfigUtil.getAppAssetPath();
+        staticResourceHandler = new StaticResourceHandler(assetPath, new File(this.getClass().getResource("/").getPath() + assetPath));
     }
 
     /**
@@ -194,48 +295,39 @@ public class DispatcherServlet extends HttpServlet {
      */
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        System.out.println("request method is " + req.getMethod() + " url is " + req.getRequestURI());
+        LOGGER.debug("request method is {} url is {}", req.getMethod(), req.getRequestURI());
+        NonBlockingResponseWriter.setInDispatch(true);
         try {
             doDispatch(req, resp);
+        } catch (RequestBodyTooLargeException e) {
+            resp.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            resp.getWriter().write("413 " + e.getMessage());
         } catch (Exception e) {
             resp.getWriter().write("500 Exception, Msg :" + Arrays.toString(e.getStackTrace()));
+        } finally {
+            NonBlockingResponseWriter.setInDispatch(false);
         }
     }
 
 
     /**
-     * @param request 请求
-     * @return 返回自定义的请求结构，"请求方法：url"
-     */
-    private Request createRequest(HttpServletRequest request) {
-        String url = request.getRequestURI();
-        String contextPath = request.getContextPath();
-        url = url.replace(contextPath, "").replaceAll("/+", "/");
-        return new Request(Enum.valueOf(RequestMethod.class, request.getMethod().toUpperCase()), url);
-    }
-
-    /**
-     * 首先根据请求找到handler
+     * 首先根据请求找到handler，同时解析出路径变量
      *
      * @param request 请求
-     * @return 返回对应的handler
+     * @param url     去掉上下文路径后的请求路径
+     * @return 返回对应的路由匹配结果
      */
-    private Handler getHandler(HttpServletRequest request) {
-        if (handlerMapping.isEmpty()) {
-            System.out.println("handlerMapping is empty");
+    private RouteMatch getHandler(HttpServletRequest request, String url) {
+        if (routeTrie.isEmpty()) {
+            LOGGER.warn("handlerMapping is empty");
             return null;
         }
-        // 获得自定义的request结构
-        Request req = createRequest(request);
-        System.out.println("getHandler... url is" + req.requestPath);
-        // 找到与请求方法匹配的handler
-        for (Request request1 : handlerMapping.keySet()) {
-            if (request1.equals(req)) {
-                return handlerMapping.get(request1);
-            }
+        LOGGER.debug("getHandler... url is {}", url);
+        RouteMatch routeMatch = routeTrie.match(Enum.valueOf(RequestMethod.class, request.getMethod().toUpperCase()), url);
+        if (routeMatch == null) {
+            LOGGER.debug("Can not find handler");
         }
-        System.out.println("Can not find handler");
-        return null;
+        return routeMatch;
     }
 
     /**
@@ -246,27 +338,12 @@ public class DispatcherServlet extends HttpServlet {
      */
     private HandlerAdapter getHandlerAdapter(Handler handler) {
         if (handler == null || adapterMapping == null || adapterMapping.isEmpty()) {
-            System.out.println("adapter is wrong");
+            LOGGER.warn("adapter is wrong");
             return null;
         }
         return adapterMapping.get(handler);
     }
 
-    /**
-     * @param request 请求
-     * @return 由PathVariable 参数与值对应的Map
-     */
-    private Map<String, String> getPathVariableMap(HttpServletRequest request) {
-        Request req = createRequest(request);
-        for (Request request1 : handlerMapping.keySet()) {
-            // 要注意，这里的equals 是重写了的。
-            if (request1.equals(req)) {
-                return Request.parsePathVariable(request1.requestPath, req.requestPath);
-            }
-        }
-        return null;
-    }
-
     /**
      * 处理客户端传来的请求，根据请求以及handler的类型，做出响应。
      *
@@ -275,21 +352,38 @@ public class DispatcherServlet extends HttpServlet {
      * @throws Exception
      */
     private void doDispatch(HttpServletRequest request, HttpServletResponse response) throws Exception {
-        Handler handler = getHandler(request);
-        if (handler == null) {
+        String url = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (!contextPath.isEmpty() && url.startsWith(contextPath)) {
+            url = url.substring(contextPath.length());
+        }
+        // 静态资源不经过handler，getRequestURI()未解码，由StaticResourceHandler解码后再解析文件
+        if (staticResourceHandler != null && staticResourceHandler.supports(url)) {
+            long start = System.nanoTime();
+            staticResourceHandler.handle(url, request, response);
+            STATIC_METRICS.recordTotal(start, System.nanoTime());
+            return;
+        }
+        long start = System.nanoTime();
+        RouteMatch routeMatch = getHandler(request, url);
+        if (routeMatch == null) {
+            if (!metricsPath.isEmpty() && metricsPath.equals(url)) {
+                writeMetrics(request, response);
+                return;
+            }
             response.getWriter().write("404 Handler Not Found");
+            NOT_FOUND_METRICS.recordTotal(start, System.nanoTime());
+            return;
         }
+        Handler handler = routeMatch.getHandler();
         HandlerAdapter handlerAdapter = getHandlerAdapter(handler);
         // 执行HandlerAdapter, 解析参数
         if (handlerAdapter != null) {
-            Map<String, String> pathVariableMap = getPathVariableMap(request);
-            Object data = handlerAdapter.handle(request, response, handler, pathVariableMap);
-            if (isResponseBody(handler)) {
-                ResultResolverHandler.handleJsonResult(data, response);
-            } else if (data instanceof ModelAndView) {
-                ResultResolverHandler.handlerFreemarkerResult(data, cfg, request, response);
-            } else {
-                ResultResolverHandler.handleStringResult(data, response);
+            try {
+                handle(handler, handlerAdapter, routeMatch.getPathVariables(), request, response, start);
+            } catch (Exception e) {
+                handler.metrics.recordError();
+                throw e;
             }
         } else {
             response.getWriter().write("404 HandlerAdapter Not Found");
@@ -297,13 +391,165 @@ public class DispatcherServlet extends HttpServlet {
     }
 
     /**
-     * handler中的方法是否被ResponseBody注解
+     * 依次经过限流和并发上限，然后执行拦截器和handler
+     *
+     * @param start 开始处理请求的时间
+     * @throws Exception
+     */
+    private void handle(Handler handler, HandlerAdapter handlerAdapter, Map<String, String> pathVariableMap,
+                        HttpServletRequest request, HttpServletResponse response, long start) throws Exception {
+        if (handler.rateLimiter != null && !admit(handler, request, response)) {
+            handler.metrics.recordTotal(start, System.nanoTime());
+            return;
+        }
+        final ConcurrencyLimiter limiter = handler.concurrencyLimiter;
+        if (limiter == null) {
+            applyInterceptors(handler, handlerAdapter, pathVariableMap, request, response, start);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            // 不排队，立即失败，避免占满容器线程
+            handler.metrics.recordConcurrencyRejected();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.getWriter().write("503 Concurrency Limit Exceeded");
+            handler.metrics.recordTotal(start, System.nanoTime());
+            return;
+        }
+        final long acquired = System.nanoTime();
+        boolean failed = true;
+        boolean async = false;
+        try {
+            applyInterceptors(handler, handlerAdapter, pathVariableMap, request, response, start);
+            failed = false;
+            // 异步handler在异步请求结束时才释放，样本为实际耗时，超时和出错计为失败
+            async = AsyncCompletion.register(request, new AsyncCompletion() {
+                @Override
+                protected void completed(long end, boolean asyncFailed, Exception ex) {
+                    limiter.release(end - acquired, asyncFailed);
+                }
+            });
+        } finally {
+            if (!async) {
+                limiter.release(System.nanoTime() - acquired, failed);
+            }
+        }
+    }
+
+    /**
+     * 依次执行拦截器的preHandle，全部通过后处理请求，最后逆序执行afterCompletion，异步请求在结束后执行
+     *
+     * @param start 开始处理请求的时间
+     * @throws Exception
+     */
+    private void applyInterceptors(Handler handler, HandlerAdapter handlerAdapter, Map<String, String> pathVariableMap,
+                                   HttpServletRequest request, HttpServletResponse response, long start) throws Exception {
+        HandlerInterceptor[] interceptors = handler.interceptors;
+        if (interceptors.length == 0) {
+            invokeHandler(handler, handlerAdapter, pathVariableMap, null, request, response, start);
+            return;
+        }
+        InterceptorChain chain = new InterceptorChain(handler, interceptors);
+        Exception failure = null;
+        try {
+            if (!chain.applyPreHandle(request, response)) {
+                handler.metrics.recordTotal(start, System.nanoTime());
+                return;
+            }
+            invokeHandler(handler, handlerAdapter, pathVariableMap, chain, request, response, start);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            chain.complete(request, response, failure);
+        }
+    }
+
+    /**
+     * 限流判断，超出速率时直接返回429和Retry-After
      *
-     * @param handler 请求
-     * @return boolean
+     * @return 是否继续处理请求
+     * @throws IOException
+     */
+    private boolean admit(Handler handler, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long waitNanos = handler.rateLimiter.tryAcquire(request);
+        handler.metrics.recordRateLimit(waitNanos == 0);
+        if (waitNanos == 0) {
+            return true;
+        }
+        response.setStatus(SC_TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", String.valueOf(RateLimiter.retryAfterSeconds(waitNanos)));
+        response.getWriter().write("429 Too Many Requests");
+        return false;
+    }
+
+    /**
+     * 绑定参数、调用handler并写出响应，同时记录各阶段耗时
+     *
+     * @param chain 拦截器链，没有拦截器时为null
+     * @param start 开始处理请求的时间
+     * @throws Exception
+     */
+    private void invokeHandler(final Handler handler, HandlerAdapter handlerAdapter, Map<String, String> pathVariableMap,
+                               InterceptorChain chain, HttpServletRequest request, HttpServletResponse response, final long start) throws Exception {
+        final long dispatched = System.nanoTime();
+        ResponseCache responseCache = handler.responseCache;
+        String key = null;
+        if (responseCache != null) {
+            // 命中缓存时不再调用handler和序列化
+            key = responseCache.key(request, pathVariableMap);
+            if (responseCache.writeCached(key, response)) {
+                handler.metrics.recordTotal(start, System.nanoTime());
+                return;
+            }
+            // 未命中时在当前线程中拿到完整的响应内容后放入缓存
+            NonBlockingResponseWriter.disable(request);
+            response = new CachingResponseWrapper(response);
+        }
+        Object[] paramValues = handlerAdapter.bind(request, response, pathVariableMap);
+        final long bound = System.nanoTime();
+        Object data = handlerAdapter.invoke(paramValues);
+        final long invoked = System.nanoTime();
+        if (chain != null) {
+            if (handler.responseStrategy instanceof AsyncStrategy && data != null) {
+                // 异步handler在结果就绪后再以结果调用postHandle
+                chain.bind(request);
+            } else {
+                chain.applyPostHandle(request, response, data);
+            }
+        }
+        handler.responseStrategy.handle(data, request, response);
+        if (responseCache != null) {
+            responseCache.store(key, (CachingResponseWrapper) response);
+        }
+        // 异步handler和非阻塞写出在异步请求结束时才记录，否则只统计到容器线程返回
+        boolean async = AsyncCompletion.register(request, new AsyncCompletion() {
+            @Override
+            protected void completed(long end, boolean failed, Exception ex) {
+                if (failed) {
+                    handler.metrics.recordError();
+                }
+                handler.metrics.record(start, dispatched, bound, invoked, end);
+            }
+        });
+        if (!async) {
+            handler.metrics.record(start, dispatched, bound, invoked, System.nanoTime());
+        }
+    }
+
+    /**
+     * 输出指标，?format=prometheus或Accept为text/plain时输出Prometheus文本格式，否则输出JSON
      */
-    private boolean isResponseBody(Handler handler) {
-        return handler.method.isAnnotationPresent(ResponseBody.class) || handler.controller.getClass().isAnnotationPresent(ResponseBody.class);
+    private void writeMetrics(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String accept = request.getHeader("Accept");
+        String body;
+        if ("prometheus".equals(request.getParameter("format")) || (accept != null && accept.startsWith("text/plain"))) {
+            response.setContentType("text/plain; version=0.0.4;charset=UTF-8");
+            body = MetricsRegistry.toPrometheus();
+        } else {
+            response.setContentType("application/json;charset=UTF-8");
+            body = MetricsRegistry.toJson();
+        }
+        response.getWriter().write(body);
     }
 
     /**
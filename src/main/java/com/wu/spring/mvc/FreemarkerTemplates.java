@@ -0,0 +1,156 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.log.Logger;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.TemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Freemarker模板的加载、启动预热和缓存统计。
+ * 模板加载器被包装一层，一次getTemplate中读取了模板文件即为未命中缓存，耗时计入解析时间。
+ * @author Cactus
+ */
+public class FreemarkerTemplates {
+    private static final Logger LOGGER = Logger.getLogger(FreemarkerTemplates.class);
+    private static final AtomicLong CACHE_HITS = new AtomicLong();
+    private static final AtomicLong CACHE_MISSES = new AtomicLong();
+    // 未命中时加载和解析模板的总纳秒数
+    private static final AtomicLong PARSE_NANOS = new AtomicLong();
+
+    // 当前线程的getTemplate调用中是否读取了模板文件
+    private static final ThreadLocal<boolean[]> LOADED = new ThreadLocal<boolean[]>() {
+        @Override
+        protected boolean[] initialValue() {
+            return new boolean[1];
+        }
+    };
+
+    private FreemarkerTemplates() {
+    }
+
+    /**
+     * 为模板目录创建带统计的模板加载器
+     * @param directory 模板目录
+     * @return 模板加载器
+     */
+    public static TemplateLoader createTemplateLoader(File directory) throws IOException {
+        return new CountingTemplateLoader(new FileTemplateLoader(directory));
+    }
+
+    /**
+     * 获取模板并记录缓存命中情况
+     * @param cfg  Freemarker配置对象
+     * @param name 模板名
+     * @return 模板
+     */
+    public static Template getTemplate(Configuration cfg, String name) throws IOException {
+        boolean[] loaded = LOADED.get();
+        loaded[0] = false;
+        long start = System.nanoTime();
+        Template template = cfg.getTemplate(name);
+        if (loaded[0]) {
+            CACHE_MISSES.incrementAndGet();
+            PARSE_NANOS.addAndGet(System.nanoTime() - start);
+        } else {
+            CACHE_HITS.incrementAndGet();
+        }
+        return template;
+    }
+
+    /**
+     * 预先解析模板目录下的全部模板，首个请求不再承担解析开销
+     * @param cfg       Freemarker配置对象
+     * @param directory 模板目录
+     * @return 成功解析的模板个数
+     */
+    public static int warmUp(Configuration cfg, File directory) {
+        List<String> names = new ArrayList<>();
+        collect(directory, "", names);
+        int parsed = 0;
+        for (String name : names) {
+            try {
+                getTemplate(cfg, name);
+                parsed++;
+            } catch (Exception e) {
+                // 模板有错误时不影响启动，请求该模板时会再次抛出
+                LOGGER.warn("模板预热失败: {}", name, e);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * 递归收集目录下的模板名，模板名为相对模板目录、以"/"分隔的路径
+     */
+    private static void collect(File directory, String prefix, List<String> names) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isHidden()) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                collect(file, prefix + file.getName() + "/", names);
+            } else {
+                names.add(prefix + file.getName());
+            }
+        }
+    }
+
+    public static long getCacheHits() {
+        return CACHE_HITS.get();
+    }
+
+    public static long getCacheMisses() {
+        return CACHE_MISSES.get();
+    }
+
+    /**
+     * @return 加载和解析模板的总毫秒数
+     */
+    public static long getParseTimeMillis() {
+        return PARSE_NANOS.get() / 1000000;
+    }
+
+    /**
+     * 委托给实际的加载器，读取模板文件时做标记
+     */
+    private static class CountingTemplateLoader implements TemplateLoader {
+        private final TemplateLoader delegate;
+
+        CountingTemplateLoader(TemplateLoader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object findTemplateSource(String name) throws IOException {
+            return delegate.findTemplateSource(name);
+        }
+
+        @Override
+        public long getLastModified(Object templateSource) {
+            return delegate.getLastModified(templateSource);
+        }
+
+        @Override
+        public Reader getReader(Object templateSource, String encoding) throws IOException {
+            LOADED.get()[0] = true;
+            return delegate.getReader(templateSource, encoding);
+        }
+
+        @Override
+        public void closeTemplateSource(Object templateSource) throws IOException {
+            delegate.closeTemplateSource(templateSource);
+        }
+    }
+}
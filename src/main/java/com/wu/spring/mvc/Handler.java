@@ -1,17 +1,39 @@
 package com.wu.spring.mvc;
 
+import com.wu.spring.metrics.RouteMetrics;
+
 import java.lang.reflect.Method;
 import java.util.Objects;
 
 public class Handler {
     protected Object controller;
     protected Method method;
+    // 映射时确定的响应策略
+    protected ResponseStrategy responseStrategy;
+    // 被@Cacheable注解时的响应缓存，否则为null
+    protected ResponseCache responseCache;
+    // 该路由的请求统计
+    protected RouteMetrics metrics;
+    // 该路由的拦截器链，映射时确定，没有时为空数组
+    protected HandlerInterceptor[] interceptors = InterceptorRegistry.EMPTY;
+    // 被@RateLimit注解时的限流器，否则为null
+    protected RateLimiter rateLimiter;
+    // 被@ConcurrencyLimit注解时的并发上限，注解在控制器上时同一控制器的handler共用，否则为null
+    protected ConcurrencyLimiter concurrencyLimiter;
 
     public Handler(Object controller, Method method) {
         this.controller = controller;
         this.method = method;
     }
 
+    public Object getController() {
+        return controller;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
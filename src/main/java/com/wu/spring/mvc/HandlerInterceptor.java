@@ -0,0 +1,45 @@
+package com.wu.spring.mvc;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * handler拦截器，用于鉴权、计时等与具体handler无关的处理。
+ * 通过InterceptorConfigurer注册，每个路由的拦截器在initHandlerMappings时确定，请求时按顺序依次调用。
+ * @author Cactus
+ */
+public interface HandlerInterceptor {
+    /**
+     * 调用handler之前执行，命中响应缓存时同样执行
+     * @param request  请求
+     * @param response 响应
+     * @param handler  处理器
+     * @return 返回false时不再调用后续拦截器和handler，此时应由拦截器自己写出响应
+     * @throws Exception
+     */
+    boolean preHandle(HttpServletRequest request, HttpServletResponse response, Handler handler) throws Exception;
+
+    /**
+     * handler调用成功后、写出响应之前执行，按注册顺序的逆序调用。命中响应缓存时不执行。
+     * 异步handler在结果成功就绪后、在完成结果的线程上执行，结果出错或超时时不执行
+     * @param request  请求
+     * @param response 响应，此时仍可设置响应头
+     * @param handler  处理器
+     * @param result   handler的返回值，异步handler为CompletableFuture或Callable的结果
+     * @throws Exception
+     */
+    default void postHandle(HttpServletRequest request, HttpServletResponse response, Handler handler, Object result) throws Exception {
+    }
+
+    /**
+     * preHandle返回true的拦截器在请求处理结束后执行，无论是否出现异常，按逆序调用。
+     * 异步handler在异步请求结束、响应写出后执行
+     * @param request  请求
+     * @param response 响应
+     * @param handler  处理器
+     * @param ex       处理过程中抛出的异常，没有时为null；异步handler为结果的异常，超时为TimeoutException
+     * @throws Exception
+     */
+    default void afterCompletion(HttpServletRequest request, HttpServletResponse response, Handler handler, Exception ex) throws Exception {
+    }
+}
@@ -0,0 +1,17 @@
+package com.wu.spring.mvc;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 控制器方法调用器，在initHandlerAdapters时与handler的控制器实例绑定
+ * @author Cactus
+ */
+public interface HandlerInvoker {
+    /**
+     * @param args 方法参数
+     * @return 方法返回值
+     * @throws InvocationTargetException 控制器方法内部抛出的异常
+     * @throws IllegalAccessException 无法访问控制器方法
+     */
+    Object invoke(Object[] args) throws InvocationTargetException, IllegalAccessException;
+}
@@ -0,0 +1,123 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.log.Logger;
+import com.wu.spring.utils.ConfigUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 根据配置生成控制器方法调用器
+ * 配置myspring.mvc.invoker=methodHandle（默认）时使用MethodHandle，生成失败则退回反射；
+ * 配置为reflection时直接使用Method.invoke，便于两种方式对比。
+ * @author Cactus
+ */
+public class HandlerInvokers {
+    private static final Logger LOGGER = Logger.getLogger(HandlerInvokers.class);
+    public static final String METHOD_HANDLE = "methodHandle";
+    public static final String REFLECTION = "reflection";
+
+    private HandlerInvokers() {
+    }
+
+    /**
+     * 按配置为handler生成调用器
+     * @param handler 处理器
+     * @return 调用器
+     */
+    public static HandlerInvoker create(Handler handler) {
+        if (REFLECTION.equalsIgnoreCase(ConfigUtil.getMvcInvoker())) {
+            return reflection(handler);
+        }
+        try {
+            return methodHandle(handler);
+        } catch (IllegalAccessException e) {
+            LOGGER.warn("MethodHandle生成失败，退回反射调用: {}", handler.method);
+            return reflection(handler);
+        }
+    }
+
+    /**
+     * 通过Method.invoke调用
+     */
+    public static HandlerInvoker reflection(final Handler handler) {
+        return new HandlerInvoker() {
+            @Override
+            public Object invoke(Object[] args) throws InvocationTargetException, IllegalAccessException {
+                return handler.method.invoke(handler.controller, args);
+            }
+        };
+    }
+
+    /**
+     * 将方法句柄绑定到控制器实例，并统一适配成(Object[])Object的形式，调用时不再做反射访问检查
+     * @throws IllegalAccessException 方法不可访问时抛出
+     */
+    public static HandlerInvoker methodHandle(Handler handler) throws IllegalAccessException {
+        final Class<?>[] parameterTypes = handler.method.getParameterTypes();
+        final MethodHandle target = MethodHandles.publicLookup()
+                .unreflect(handler.method)
+                .bindTo(handler.controller)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        final String methodName = handler.method.toString();
+        return new HandlerInvoker() {
+            @Override
+            public Object invoke(Object[] args) throws InvocationTargetException {
+                // 先检查参数，类型不匹配时与Method.invoke一样抛出IllegalArgumentException，而不是当作控制器抛出的异常
+                checkArguments(methodName, parameterTypes, args);
+                try {
+                    return target.invokeExact(args);
+                } catch (Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    // 参数已检查过，此处只会是控制器抛出的异常，与Method.invoke保持一致包装为InvocationTargetException
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 检查参数个数和类型，基本类型参数不能为null
+     * @throws IllegalArgumentException 参数与方法声明不匹配
+     */
+    static void checkArguments(String methodName, Class<?>[] parameterTypes, Object[] args) {
+        int length = args == null ? 0 : args.length;
+        if (length != parameterTypes.length) {
+            throw new IllegalArgumentException("参数个数不匹配: " + methodName + " 需要" + parameterTypes.length + "个, 实际" + length + "个");
+        }
+        for (int i = 0; i < length; i++) {
+            Class<?> type = parameterTypes[i];
+            Object arg = args[i];
+            if (arg == null ? type.isPrimitive() : !wrap(type).isInstance(arg)) {
+                throw new IllegalArgumentException("第" + (i + 1) + "个参数类型不匹配: " + methodName + " 需要" + type.getName()
+                        + ", 实际" + (arg == null ? "null" : arg.getClass().getName()));
+            }
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+}
@@ -0,0 +1,92 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.log.Logger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 一次请求经过的拦截器链，记录preHandle返回true的拦截器，afterCompletion只逆序调用这些拦截器。
+ * 异步handler的postHandle在结果就绪后由AsyncStrategy调用，afterCompletion在异步请求结束后调用。
+ * @author Cactus
+ */
+class InterceptorChain {
+    private static final Logger LOGGER = Logger.getLogger(InterceptorChain.class);
+    // 异步handler的拦截器链，结果就绪后由AsyncStrategy取出
+    private static final String ATTRIBUTE = InterceptorChain.class.getName();
+
+    private final Handler handler;
+    private final HandlerInterceptor[] interceptors;
+    // preHandle返回true的拦截器个数，异步结束时在其他线程读取
+    private volatile int passed;
+
+    InterceptorChain(Handler handler, HandlerInterceptor[] interceptors) {
+        this.handler = handler;
+        this.interceptors = interceptors;
+    }
+
+    /**
+     * 按顺序执行preHandle
+     * @return 是否全部通过，返回false时已由拦截器写出响应
+     */
+    boolean applyPreHandle(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        while (passed < interceptors.length) {
+            if (!interceptors[passed].preHandle(request, response, handler)) {
+                return false;
+            }
+            passed++;
+        }
+        return true;
+    }
+
+    /**
+     * 逆序执行postHandle
+     * @param result handler的返回值，异步handler为异步结果
+     */
+    void applyPostHandle(HttpServletRequest request, HttpServletResponse response, Object result) throws Exception {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            interceptors[i].postHandle(request, response, handler, result);
+        }
+    }
+
+    /**
+     * 异步handler在结果就绪后才执行postHandle，把拦截器链交给AsyncStrategy
+     */
+    void bind(HttpServletRequest request) {
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    /**
+     * @return 异步handler的拦截器链，没有时为null
+     */
+    static InterceptorChain get(HttpServletRequest request) {
+        return (InterceptorChain) request.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * 容器线程处理结束时调用：请求已进入异步模式时等异步请求结束再执行afterCompletion，否则立即执行
+     * @param ex 同步处理中抛出的异常，没有时为null
+     */
+    void complete(final HttpServletRequest request, final HttpServletResponse response, Exception ex) {
+        if (ex == null && AsyncCompletion.register(request, new AsyncCompletion() {
+            @Override
+            protected void completed(long end, boolean failed, Exception asyncEx) {
+                triggerAfterCompletion(request, response, asyncEx);
+            }
+        })) {
+            return;
+        }
+        triggerAfterCompletion(request, response, ex);
+    }
+
+    private void triggerAfterCompletion(HttpServletRequest request, HttpServletResponse response, Exception ex) {
+        for (int i = passed - 1; i >= 0; i--) {
+            try {
+                interceptors[i].afterCompletion(request, response, handler, ex);
+            } catch (Exception e) {
+                // 不覆盖请求处理中的异常
+                LOGGER.error("afterCompletion异常: " + interceptors[i].getClass().getName(), e);
+            }
+        }
+    }
+}
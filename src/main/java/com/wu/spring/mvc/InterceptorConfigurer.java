@@ -0,0 +1,12 @@
+package com.wu.spring.mvc;
+
+/**
+ * 注册拦截器的回调。实现该接口并注解为@Component的bean，会在initHandlerMappings之前被调用
+ * @author Cactus
+ */
+public interface InterceptorConfigurer {
+    /**
+     * @param registry 拦截器注册表
+     */
+    void addInterceptors(InterceptorRegistry registry);
+}
@@ -0,0 +1,120 @@
+package com.wu.spring.mvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一个拦截器的路径和顺序配置。
+ * 路径模式按"/"分段：*或{name}匹配一段，**匹配任意多段，其余逐字匹配。
+ * 模式与路由模板而不是实际请求路径匹配，如/user/{name}/{id}和/user/**都能匹配路由/user/findUser/{id}，
+ * 因此每个路由的拦截器在启动时即可确定。
+ * @author Cactus
+ */
+public class InterceptorRegistration {
+    private final HandlerInterceptor interceptor;
+    private final List<String[]> includePatterns = new ArrayList<>();
+    private final List<String[]> excludePatterns = new ArrayList<>();
+    private int order = 0;
+
+    InterceptorRegistration(HandlerInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    /**
+     * @param patterns 需要拦截的路径模式，如/user/**
+     */
+    public InterceptorRegistration addPathPatterns(String... patterns) {
+        for (String pattern : patterns) {
+            includePatterns.add(split(pattern));
+        }
+        return this;
+    }
+
+    /**
+     * @param patterns 不拦截的路径模式，优先于addPathPatterns
+     */
+    public InterceptorRegistration excludePathPatterns(String... patterns) {
+        for (String pattern : patterns) {
+            excludePatterns.add(split(pattern));
+        }
+        return this;
+    }
+
+    /**
+     * @param order 越小越先执行preHandle，默认为0
+     */
+    public InterceptorRegistration order(int order) {
+        this.order = order;
+        return this;
+    }
+
+    HandlerInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    boolean matches(String route) {
+        String[] segments = split(route);
+        for (String[] pattern : excludePatterns) {
+            if (match(pattern, 0, segments, 0)) {
+                return false;
+            }
+        }
+        if (includePatterns.isEmpty()) {
+            return true;
+        }
+        for (String[] pattern : includePatterns) {
+            if (match(pattern, 0, segments, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分段匹配，**可以匹配零到多段
+     */
+    static boolean match(String[] pattern, int p, String[] segments, int s) {
+        while (p < pattern.length) {
+            String part = pattern[p];
+            if ("**".equals(part)) {
+                // 连续的**等同于一个
+                while (p + 1 < pattern.length && "**".equals(pattern[p + 1])) {
+                    p++;
+                }
+                if (p + 1 == pattern.length) {
+                    return true;
+                }
+                for (int i = s; i <= segments.length; i++) {
+                    if (match(pattern, p + 1, segments, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (s == segments.length) {
+                return false;
+            }
+            if (!"*".equals(part) && !isVariable(part) && !part.equals(segments[s])) {
+                return false;
+            }
+            p++;
+            s++;
+        }
+        return s == segments.length;
+    }
+
+    private static boolean isVariable(String part) {
+        return part.startsWith("{") && part.endsWith("}");
+    }
+
+    private static String[] split(String path) {
+        List<String> segments = new ArrayList<>(Arrays.asList(path.split("/")));
+        segments.removeAll(Arrays.asList(""));
+        return segments.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,56 @@
+package com.wu.spring.mvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 拦截器注册表，只在启动时使用
+ * @author Cactus
+ */
+public class InterceptorRegistry {
+    static final HandlerInterceptor[] EMPTY = new HandlerInterceptor[0];
+
+    private final List<InterceptorRegistration> registrations = new ArrayList<>();
+
+    /**
+     * 注册拦截器，未指定路径时拦截全部路由
+     * @param interceptor 拦截器
+     * @return 用于指定路径和顺序
+     */
+    public InterceptorRegistration addInterceptor(HandlerInterceptor interceptor) {
+        InterceptorRegistration registration = new InterceptorRegistration(interceptor);
+        registrations.add(registration);
+        return registration;
+    }
+
+    /**
+     * 按路由模板计算该路由的拦截器链
+     * @param route 路由模板，如/user/findUser/{id}
+     * @return 按order从小到大排序的拦截器，order相同时按注册顺序
+     */
+    HandlerInterceptor[] getInterceptors(String route) {
+        List<InterceptorRegistration> matched = new ArrayList<>();
+        for (InterceptorRegistration registration : registrations) {
+            if (registration.matches(route)) {
+                matched.add(registration);
+            }
+        }
+        if (matched.isEmpty()) {
+            return EMPTY;
+        }
+        // 稳定排序，order相同的保持注册顺序
+        Collections.sort(matched, new Comparator<InterceptorRegistration>() {
+            @Override
+            public int compare(InterceptorRegistration o1, InterceptorRegistration o2) {
+                return Integer.compare(o1.getOrder(), o2.getOrder());
+            }
+        });
+        HandlerInterceptor[] interceptors = new HandlerInterceptor[matched.size()];
+        for (int i = 0; i < interceptors.length; i++) {
+            interceptors[i] = matched.get(i).getInterceptor();
+        }
+        return interceptors;
+    }
+}
@@ -0,0 +1,256 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.utils.ConfigUtil;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * 通过Servlet 3.1的WriteListener写出分块。
+ * 只在socket可写时写出下一块，慢客户端不再占用处理请求的线程，全部写完后结束异步请求。
+ * 分块队列有上限：边生成边写出时，队列满了生成方会等待，内存占用不随响应大小增长；
+ * 客户端出错或超时时丢弃剩余分块、唤醒生成方并结束异步请求；
+ * 队列满后超过异步超时时间仍未写出任何分块，同样视为超时，避免生成方一直等待。
+ * @author Cactus
+ */
+public class NonBlockingResponseWriter implements WriteListener, AsyncListener {
+    // 请求属性，存在时表示响应交由WriteListener写出，由它负责结束异步请求
+    private static final String WRITING_ATTRIBUTE = NonBlockingResponseWriter.class.getName() + ".WRITING";
+    // 请求属性，存在时该请求的响应只能阻塞写出
+    private static final String DISABLED_ATTRIBUTE = NonBlockingResponseWriter.class.getName() + ".DISABLED";
+    // 队列中最多暂存的分块个数
+    private static final int MAX_CHUNKS = Math.max(1, ConfigUtil.getMvcNonBlockingMaxChunks());
+    // 队列满时生成方最多等待的毫秒数
+    private static final long WRITE_TIMEOUT = ConfigUtil.getMvcAsyncTimeout();
+
+    // 当前线程是否处于容器对DispatcherServlet的调用中。此时WriteListener要等本次调用返回才会被回调，生成方不能等待
+    private static final ThreadLocal<boolean[]> IN_DISPATCH = new ThreadLocal<boolean[]>() {
+        @Override
+        protected boolean[] initialValue() {
+            return new boolean[1];
+        }
+    };
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    // 以下状态由this保护
+    private final ArrayDeque<byte[]> chunks;
+    // 生成方是否已写完
+    private boolean closed;
+    // 客户端出错、超时或异步请求已结束
+    private boolean failed;
+    private boolean completed;
+
+    private NonBlockingResponseWriter(AsyncContext asyncContext, ServletOutputStream out, ArrayDeque<byte[]> chunks, boolean closed) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.chunks = chunks;
+        this.closed = closed;
+    }
+
+    /**
+     * 非阻塞写出已全部生成的分块，请求尚未进入异步模式时先开启
+     * @param request  请求
+     * @param response 响应
+     * @param chunks   已编码的分块，个数不超过getMaxChunks()
+     * @param length   分块的总字节数
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response, ArrayDeque<byte[]> chunks, long length) throws IOException {
+        response.setContentLengthLong(length);
+        start(request, response, chunks, true);
+    }
+
+    /**
+     * 开始边生成边写出，此后通过write(byte[], int, int)追加内容，最后调用finish()。
+     * 不能在容器对DispatcherServlet的调用中使用，见isInDispatch()
+     * @param request  请求
+     * @param response 响应
+     * @return 写出器
+     */
+    public static NonBlockingResponseWriter open(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return start(request, response, new ArrayDeque<byte[]>(), false);
+    }
+
+    private static NonBlockingResponseWriter start(HttpServletRequest request, HttpServletResponse response,
+                                                   ArrayDeque<byte[]> chunks, boolean closed) throws IOException {
+        AsyncContext asyncContext;
+        if (request.isAsyncStarted()) {
+            asyncContext = request.getAsyncContext();
+        } else {
+            asyncContext = request.startAsync(request, response);
+            asyncContext.setTimeout(ConfigUtil.getMvcAsyncTimeout());
+        }
+        request.setAttribute(WRITING_ATTRIBUTE, Boolean.TRUE);
+        ServletOutputStream out = response.getOutputStream();
+        NonBlockingResponseWriter writer = new NonBlockingResponseWriter(asyncContext, out, chunks, closed);
+        asyncContext.addListener(writer);
+        out.setWriteListener(writer);
+        return writer;
+    }
+
+    /**
+     * 追加内容，队列已满时等待WriteListener写出
+     * @throws IOException 客户端出错、超时或异步请求已结束
+     */
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        // 每写出一块队列长度就会变化，截止时间按最近一次进展计算
+        long deadline = System.currentTimeMillis() + WRITE_TIMEOUT;
+        int size = chunks.size();
+        while (!failed && chunks.size() >= MAX_CHUNKS) {
+            if (chunks.size() != size) {
+                size = chunks.size();
+                deadline = System.currentTimeMillis() + WRITE_TIMEOUT;
+            }
+            // 超时时间不大于0时与异步请求一样不限制
+            long remaining = WRITE_TIMEOUT > 0 ? deadline - System.currentTimeMillis() : 0;
+            if (WRITE_TIMEOUT > 0 && remaining <= 0) {
+                fail();
+                break;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("等待写出时被中断", e);
+            }
+        }
+        if (failed) {
+            throw new IOException("客户端连接已断开或请求已超时");
+        }
+        chunks.add(Arrays.copyOfRange(b, off, off + len));
+        // WriteListener空闲时不会再被回调，由生成方写出
+        drain();
+    }
+
+    /**
+     * 生成方已写完，剩余分块写出后结束异步请求
+     */
+    public synchronized void finish() throws IOException {
+        closed = true;
+        drain();
+    }
+
+    @Override
+    public synchronized void onWritePossible() throws IOException {
+        drain();
+    }
+
+    /**
+     * 在socket可写时写出分块，isReady()返回false后容器会在可写时回调onWritePossible
+     */
+    private void drain() throws IOException {
+        while (!failed && out.isReady()) {
+            byte[] chunk = chunks.poll();
+            if (chunk == null) {
+                if (closed) {
+                    complete();
+                }
+                return;
+            }
+            out.write(chunk);
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        fail();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        fail();
+    }
+
+    @Override
+    public synchronized void onComplete(AsyncEvent event) {
+        // 由其他方结束时，等待中的生成方不能再写
+        completed = true;
+        failed = true;
+        chunks.clear();
+        notifyAll();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    /**
+     * 丢弃剩余分块，唤醒生成方并结束异步请求
+     */
+    private synchronized void fail() {
+        failed = true;
+        chunks.clear();
+        notifyAll();
+        complete();
+    }
+
+    private void complete() {
+        if (!completed) {
+            completed = true;
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * @return 响应全部生成后再写出时最多暂存的分块个数
+     */
+    public static int getMaxChunks() {
+        return MAX_CHUNKS;
+    }
+
+    /**
+     * DispatcherServlet处理请求前后调用，标记当前线程处于容器的调用中
+     * @param inDispatch 是否进入调用
+     */
+    static void setInDispatch(boolean inDispatch) {
+        IN_DISPATCH.get()[0] = inDispatch;
+    }
+
+    /**
+     * @return 当前线程是否处于容器对DispatcherServlet的调用中，此时只能在生成完毕后再交给WriteListener
+     */
+    public static boolean isInDispatch() {
+        return IN_DISPATCH.get()[0];
+    }
+
+    /**
+     * 禁止该请求非阻塞写出，用于需要在同一线程中拿到完整响应内容的场景
+     * @param request 请求
+     */
+    public static void disable(HttpServletRequest request) {
+        request.setAttribute(DISABLED_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    /**
+     * @param request 请求
+     * @return 该请求的响应是否可以非阻塞写出
+     */
+    public static boolean isAllowed(HttpServletRequest request) {
+        return request.getAttribute(DISABLED_ATTRIBUTE) == null;
+    }
+
+    /**
+     * @param request 请求
+     * @return 响应是否交由WriteListener写出，是则调用方不能再结束异步请求
+     */
+    public static boolean isWriting(HttpServletRequest request) {
+        return request.getAttribute(WRITING_ATTRIBUTE) != null;
+    }
+}
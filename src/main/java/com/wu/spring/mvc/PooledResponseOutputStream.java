@@ -0,0 +1,327 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.utils.ConfigUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基于线程复用缓冲区的响应输出流。
+ * 内容能放进一个缓冲区时，结束时设置Content-Length并一次写出；
+ * 超出缓冲区后，每写满一次缓冲区就直接写入servlet的OutputStream；
+ * 开启非阻塞写出时交给NonBlockingResponseWriter按socket可写情况写出：在容器的调用中把写满的缓冲区复制为分块暂存，
+ * 结束时交给WriteListener，暂存的分块超过上限时改为阻塞写出；在异步线程中则边生成边写出，队列满时等待。
+ * 客户端接受gzip且内容达到压缩阈值时，写出前先压缩，溢出后边写边压缩。
+ * 同一线程同一时刻只能使用一个实例。
+ * @author Cactus
+ */
+public class PooledResponseOutputStream extends OutputStream {
+    // 缓冲区大小
+    private static final int BUFFER_SIZE = ConfigUtil.getMvcResponseBufferSize();
+    // 是否开启非阻塞写出
+    private static final boolean NON_BLOCKING_WRITE = ConfigUtil.getMvcNonBlockingWrite();
+
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    // 非阻塞写出时使用的请求，为null表示阻塞写出
+    private final HttpServletRequest nonBlockingRequest;
+    private final HttpServletResponse response;
+    // 客户端是否接受gzip
+    private final boolean gzipAccepted;
+    private final byte[] buffer;
+    // 缓冲区中已写入的字节数
+    private int count;
+    // 溢出后才创建的写出目标：servlet输出流或分块队列，需要压缩时外面再包一层gzip
+    private OutputStream target;
+    private GZIPOutputStream gzip;
+    // 非阻塞写出时溢出内容的去向
+    private NonBlockingOutputStream nonBlocking;
+    // 每写满一次缓冲区是否立即发给客户端
+    private boolean streaming;
+
+    public PooledResponseOutputStream(HttpServletResponse response) {
+        this(null, response);
+    }
+
+    /**
+     * @param request  请求，传入时按Accept-Encoding协商压缩，开启了非阻塞写出时溢出的内容在结束时非阻塞写出
+     * @param response 响应
+     */
+    public PooledResponseOutputStream(HttpServletRequest request, HttpServletResponse response) {
+        this.nonBlockingRequest = NON_BLOCKING_WRITE && request != null && NonBlockingResponseWriter.isAllowed(request) ? request : null;
+        this.response = response;
+        this.gzipAccepted = request != null && ResponseCompression.acceptsGzip(request);
+        this.buffer = BUFFER.get();
+    }
+
+    /**
+     * 设置为流式写出后，每写满一次缓冲区以及调用flush时都立即发给客户端，非阻塞写出时不生效
+     * @param streaming 是否流式写出
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                drain();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 把字符按UTF-8直接编码进缓冲区的Writer，不经过中间的字节数组
+     * @return Writer，flush不会写出，内容仍在close时写出
+     */
+    Writer utf8Writer() {
+        return new Utf8Writer();
+    }
+
+    /**
+     * 流式写出时把缓冲区中已有的内容立即发给客户端。
+     * 否则忽略，内容在溢出或结束时写出，能放进缓冲区的响应因此仍可设置Content-Length。
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!streaming || nonBlockingRequest != null) {
+            // 非阻塞写出时内容在结束时统一写出
+            return;
+        }
+        drain();
+        target.flush();
+    }
+
+    /**
+     * 结束写入。从未溢出时设置Content-Length后一次写出。
+     */
+    @Override
+    public void close() throws IOException {
+        if (target == null) {
+            writeOnce();
+            return;
+        }
+        drain();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        if (nonBlocking != null) {
+            nonBlocking.finish();
+        } else {
+            target.flush();
+        }
+    }
+
+    /**
+     * 内容全部在缓冲区中，达到压缩阈值时压缩后一次写出
+     */
+    private void writeOnce() throws IOException {
+        byte[] bytes = buffer;
+        int length = count;
+        if (ResponseCompression.shouldCompress(count)) {
+            ResponseCompression.markVary(response);
+            if (gzipAccepted) {
+                bytes = ResponseCompression.gzip(buffer, 0, count);
+                length = bytes.length;
+                ResponseCompression.markCompressed(response);
+            }
+        }
+        response.setContentLength(length);
+        target = response.getOutputStream();
+        target.write(bytes, 0, length);
+        count = 0;
+        target.flush();
+    }
+
+    /**
+     * 将缓冲区写入servlet输出流或分块队列并清空缓冲区
+     */
+    private void drain() throws IOException {
+        if (target == null) {
+            target = openTarget();
+        }
+        target.write(buffer, 0, count);
+        count = 0;
+        if (streaming && nonBlockingRequest == null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * 第一次溢出时创建写出目标，此时内容已超过一个缓冲区，只要达到阈值就压缩
+     */
+    private OutputStream openTarget() throws IOException {
+        OutputStream out;
+        if (nonBlockingRequest != null) {
+            nonBlocking = new NonBlockingOutputStream();
+            out = nonBlocking;
+        } else {
+            out = response.getOutputStream();
+        }
+        if (ResponseCompression.shouldCompress(buffer.length)) {
+            ResponseCompression.markVary(response);
+        }
+        if (gzipAccepted && ResponseCompression.shouldCompress(buffer.length)) {
+            ResponseCompression.markCompressed(response);
+            // syncFlush使flush能把已压缩的内容立即发出
+            gzip = new GZIPOutputStream(out, BUFFER_SIZE, true);
+            out = gzip;
+        }
+        return out;
+    }
+
+    /**
+     * 非阻塞写出时溢出内容的去向。
+     * 不在容器的调用中时直接交给NonBlockingResponseWriter边生成边写出；
+     * 否则复制成分块暂存，个数超过上限时把已暂存的分块写入servlet输出流，此后改为阻塞写出，内存占用始终有上限。
+     */
+    private class NonBlockingOutputStream extends OutputStream {
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+        // 分块的总字节数
+        private long length;
+        // 边生成边写出时的写出器
+        private NonBlockingResponseWriter writer;
+        // 暂存超过上限后使用的servlet输出流
+        private OutputStream blocking;
+
+        NonBlockingOutputStream() throws IOException {
+            if (!NonBlockingResponseWriter.isInDispatch()) {
+                writer = NonBlockingResponseWriter.open(nonBlockingRequest, response);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            if (writer != null) {
+                writer.write(b, off, len);
+                return;
+            }
+            if (blocking != null) {
+                blocking.write(b, off, len);
+                return;
+            }
+            chunks.add(Arrays.copyOfRange(b, off, off + len));
+            length += len;
+            if (chunks.size() > NonBlockingResponseWriter.getMaxChunks()) {
+                blocking = response.getOutputStream();
+                byte[] chunk;
+                while ((chunk = chunks.poll()) != null) {
+                    blocking.write(chunk);
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.finish();
+            } else if (blocking != null) {
+                blocking.flush();
+            } else {
+                NonBlockingResponseWriter.write(nonBlockingRequest, response, chunks, length);
+            }
+        }
+    }
+
+    /**
+     * UTF-8编码的Writer，ASCII字符逐个放入缓冲区，其余字符经write(int)在缓冲区写满时写出。
+     * 代理对可能被拆在两次write之间，高位代理先暂存；不成对的代理与fastjson一样编码为'?'
+     */
+    private class Utf8Writer extends Writer {
+        // 等待低位代理的高位代理，没有时为0
+        private char highSurrogate;
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = chars[i];
+                if (c < 0x80 && highSurrogate == 0) {
+                    if (count == buffer.length) {
+                        drain();
+                    }
+                    buffer[count++] = (byte) c;
+                } else {
+                    writeChar(c);
+                }
+            }
+        }
+
+        private void writeChar(char c) throws IOException {
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    PooledResponseOutputStream.this.write(0xf0 | (codePoint >> 18));
+                    PooledResponseOutputStream.this.write(0x80 | ((codePoint >> 12) & 0x3f));
+                    PooledResponseOutputStream.this.write(0x80 | ((codePoint >> 6) & 0x3f));
+                    PooledResponseOutputStream.this.write(0x80 | (codePoint & 0x3f));
+                    return;
+                }
+                PooledResponseOutputStream.this.write('?');
+            }
+            if (c < 0x80) {
+                PooledResponseOutputStream.this.write(c);
+            } else if (c < 0x800) {
+                PooledResponseOutputStream.this.write(0xc0 | (c >> 6));
+                PooledResponseOutputStream.this.write(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                PooledResponseOutputStream.this.write('?');
+            } else {
+                PooledResponseOutputStream.this.write(0xe0 | (c >> 12));
+                PooledResponseOutputStream.this.write(0x80 | ((c >> 6) & 0x3f));
+                PooledResponseOutputStream.this.write(0x80 | (c & 0x3f));
+            }
+        }
+
+        /**
+         * SerializeWriter每写满一次自己的缓冲区都会调用，这里不写出
+         */
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                PooledResponseOutputStream.this.write('?');
+            }
+        }
+    }
+}
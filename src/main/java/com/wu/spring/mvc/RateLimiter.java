@@ -0,0 +1,119 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.annotation.mvc.RateLimit;
+import com.wu.spring.constants.RateLimitKey;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个路由的限流器，在映射handler时根据@RateLimit创建。
+ * 按客户端维度各维护一个令牌桶，客户端个数超出上限时先清理已补满的令牌桶，仍然超出时新客户端共用一个令牌桶。
+ * @author Cactus
+ */
+class RateLimiter {
+    private final double permitsPerSecond;
+    private final int burst;
+    private final RateLimitKey key;
+    private final String keyName;
+    private final int maxKeys;
+    // 按路由限流，以及客户端没有key或超出上限时共用的令牌桶
+    private final TokenBucket shared;
+    private final ConcurrentMap<String, TokenBucket> buckets;
+    // 同一时刻只有一个线程清理
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+
+    /**
+     * @param rateLimit 限流配置
+     * @throws IllegalArgumentException 每秒令牌数不是正数
+     */
+    RateLimiter(RateLimit rateLimit) {
+        // 写成取反的形式，NaN也会被拒绝
+        if (!(rateLimit.permitsPerSecond() > 0) || Double.isInfinite(rateLimit.permitsPerSecond())) {
+            throw new IllegalArgumentException("@RateLimit的permitsPerSecond必须是正数: " + rateLimit.permitsPerSecond());
+        }
+        this.permitsPerSecond = rateLimit.permitsPerSecond();
+        this.burst = rateLimit.burst() >= 1 ? rateLimit.burst() : (int) Math.max(1, Math.ceil(permitsPerSecond));
+        this.key = rateLimit.key();
+        this.keyName = rateLimit.keyName();
+        this.maxKeys = rateLimit.maxKeys();
+        this.shared = new TokenBucket(permitsPerSecond, burst);
+        this.buckets = key == RateLimitKey.ROUTE ? null : new ConcurrentHashMap<String, TokenBucket>();
+    }
+
+    /**
+     * 为请求取一个令牌
+     * @param request 请求
+     * @return 取到时返回0，否则返回还需等待的纳秒数
+     */
+    long tryAcquire(HttpServletRequest request) {
+        return bucketFor(request).tryAcquire();
+    }
+
+    /**
+     * 把等待时间换算成Retry-After的秒数，向上取整，客户端按该值重试时一定能取到令牌
+     * @param waitNanos tryAcquire返回的纳秒数
+     * @return 秒数
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        return (waitNanos + 999999999L) / 1000000000L;
+    }
+
+    private TokenBucket bucketFor(HttpServletRequest request) {
+        if (buckets == null) {
+            return shared;
+        }
+        String clientKey = clientKey(request);
+        if (clientKey == null || clientKey.isEmpty()) {
+            return shared;
+        }
+        TokenBucket bucket = buckets.get(clientKey);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            sweep();
+            if (buckets.size() >= maxKeys) {
+                return shared;
+            }
+        }
+        bucket = new TokenBucket(permitsPerSecond, burst);
+        TokenBucket old = buckets.putIfAbsent(clientKey, bucket);
+        return old != null ? old : bucket;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        switch (key) {
+            case IP:
+                return request.getRemoteAddr();
+            case HEADER:
+                return request.getHeader(keyName);
+            case PARAM:
+                return request.getParameter(keyName);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 移除已经补满的令牌桶，之后该客户端再来时新建的令牌桶状态相同
+     */
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<TokenBucket> iterator = buckets.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isFull()) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
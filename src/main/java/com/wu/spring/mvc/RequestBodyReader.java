@@ -0,0 +1,87 @@
+package com.wu.spring.mvc;
+
+import com.alibaba.fastjson.JSON;
+import com.wu.spring.utils.ConfigUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 请求体读取，直接从request.getInputStream()读入线程复用的字节缓冲区，再由fastjson从字节解码，
+ * 不再经过char[]和String两份拷贝。读取过程中限制请求体的最大长度。
+ * @author Cactus
+ */
+public class RequestBodyReader {
+    // 缓冲区初始大小
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    // 超过该大小的缓冲区用完即丢弃，避免线程长期占用大块内存
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+    // 请求体最大字节数
+    private static final int MAX_BODY_SIZE = ConfigUtil.getMvcMaxBodySize();
+
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[INITIAL_BUFFER_SIZE];
+        }
+    };
+
+    private RequestBodyReader() {
+    }
+
+    /**
+     * 将请求体解析为指定类型的对象
+     * @param request 请求
+     * @param type    目标类型
+     * @return 解析结果，请求体为空时返回null
+     * @throws IOException 读取失败或请求体超过最大长度
+     */
+    public static Object readJson(HttpServletRequest request, Type type) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > MAX_BODY_SIZE) {
+            throw new RequestBodyTooLargeException(MAX_BODY_SIZE);
+        }
+        byte[] buffer = BUFFER.get();
+        if (contentLength >= buffer.length) {
+            // 已知长度时一次分配到位，多留一个字节用于读到流结束
+            buffer = new byte[(int) contentLength + 1];
+        }
+        int length = 0;
+        try (InputStream inputStream = request.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                // 边读边检查，不依赖客户端声明的Content-Length
+                if (length > MAX_BODY_SIZE) {
+                    throw new RequestBodyTooLargeException(MAX_BODY_SIZE);
+                }
+                if (length == buffer.length) {
+                    // 最多扩容到上限加一个字节，读满即说明超长
+                    buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length << 1, (long) MAX_BODY_SIZE + 1));
+                }
+            }
+        } finally {
+            if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+                BUFFER.set(buffer);
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        return JSON.parseObject(buffer, 0, length, getCharset(request), type);
+    }
+
+    private static Charset getCharset(HttpServletRequest request) {
+        String encoding = request.getCharacterEncoding();
+        if (encoding == null) {
+            // JSON默认使用UTF-8
+            return StandardCharsets.UTF_8;
+        }
+        return Charset.forName(encoding);
+    }
+}
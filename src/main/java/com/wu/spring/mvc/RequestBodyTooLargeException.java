@@ -0,0 +1,14 @@
+package com.wu.spring.mvc;
+
+import java.io.IOException;
+
+/**
+ * 请求体超过配置的最大长度
+ * @author Cactus
+ */
+public class RequestBodyTooLargeException extends IOException {
+
+    public RequestBodyTooLargeException(int maxBodySize) {
+        super("请求体超过最大长度 " + maxBodySize + " 字节");
+    }
+}
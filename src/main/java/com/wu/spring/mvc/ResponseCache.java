@@ -0,0 +1,209 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.annotation.mvc.Cacheable;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个@Cacheable handler的响应缓存，保存序列化后的响应字节，只缓存200且没有sendError/重定向的响应。
+ * 读取不加锁：命中时只更新条目的访问时间。超过maxSize后由一个线程先移除过期的响应，
+ * 仍然超出时按访问时间淘汰最早的一批，是近似的LRU，淘汰期间个数可能短暂超过maxSize。
+ * @author Cactus
+ */
+public class ResponseCache {
+    private final long ttlNanos;
+    private final int maxSize;
+    // 组成缓存key的参数名，为空时使用请求路径和查询字符串
+    private final String[] keyNames;
+    private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    // 同一时刻只有一个线程淘汰
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public ResponseCache(Cacheable cacheable) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(cacheable.ttl());
+        this.maxSize = Math.max(1, cacheable.maxSize());
+        this.keyNames = cacheable.key();
+    }
+
+    /**
+     * 生成缓存key，响应是否经过gzip压缩也是key的一部分
+     * @param request       请求
+     * @param pathVariables 路径变量
+     * @return 缓存key
+     */
+    public String key(HttpServletRequest request, Map<String, String> pathVariables) {
+        StringBuilder key = new StringBuilder(64);
+        if (keyNames.length == 0) {
+            key.append(request.getRequestURI());
+            String query = request.getQueryString();
+            if (query != null) {
+                key.append('?').append(query);
+            }
+        } else {
+            for (String name : keyNames) {
+                String value = request.getParameter(name);
+                if (value == null && pathVariables != null) {
+                    value = pathVariables.get(name);
+                }
+                key.append(name).append('=').append(value).append('&');
+            }
+        }
+        if (ResponseCompression.acceptsGzip(request)) {
+            key.append("|gzip");
+        }
+        return key.toString();
+    }
+
+    /**
+     * 命中时直接写出缓存的字节
+     * @param key      缓存key
+     * @param response 响应
+     * @return 是否命中
+     */
+    public boolean writeCached(String key, HttpServletResponse response) throws IOException {
+        CachedResponse cached = entries.get(key);
+        if (cached == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (cached.isExpired(now)) {
+            // 只移除自己读到的条目，不影响其他线程刚放入的新响应
+            entries.remove(key, cached);
+            return false;
+        }
+        cached.lastAccess = now;
+        if (cached.contentType != null) {
+            response.setContentType(cached.contentType);
+        }
+        if (cached.contentEncoding != null) {
+            response.setHeader("Content-Encoding", cached.contentEncoding);
+        }
+        if (cached.vary != null) {
+            response.setHeader("Vary", cached.vary);
+        }
+        response.setContentLength(cached.body.length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(cached.body);
+        out.flush();
+        return true;
+    }
+
+    /**
+     * handler执行完后保存响应并写出
+     * @param key     缓存key
+     * @param wrapper 暂存了响应内容的响应包装
+     */
+    public void store(String key, CachingResponseWrapper wrapper) throws IOException {
+        byte[] body = wrapper.getBody();
+        if (wrapper.isCacheable()) {
+            long now = System.nanoTime();
+            CachedResponse cached = new CachedResponse(wrapper.getContentType(), wrapper.getHeader("Content-Encoding"),
+                    wrapper.getHeader("Vary"), body, now + ttlNanos, now);
+            entries.put(key, cached);
+            if (entries.size() > maxSize) {
+                evict(now);
+            }
+        }
+        wrapper.writeTo(body);
+    }
+
+    /**
+     * @return 当前缓存的响应个数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 先移除过期的响应，仍超过maxSize时淘汰访问时间最早的响应，留出约十分之一的空位，避免每次放入都要淘汰
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            for (Map.Entry<String, CachedResponse> entry : entries.entrySet()) {
+                CachedResponse cached = entry.getValue();
+                if (cached.isExpired(now)) {
+                    entries.remove(entry.getKey(), cached);
+                } else {
+                    candidates.add(new Candidate(entry.getKey(), cached, cached.lastAccess - now));
+                }
+            }
+            if (entries.size() <= maxSize) {
+                return;
+            }
+            int excess = entries.size() - (maxSize - maxSize / 10);
+            // 按取出时的访问时间排序，排序期间其他线程命中条目不会改变比较结果
+            Collections.sort(candidates, new Comparator<Candidate>() {
+                @Override
+                public int compare(Candidate a, Candidate b) {
+                    return Long.compare(a.age, b.age);
+                }
+            });
+            for (int i = 0; i < candidates.size() && excess > 0; i++) {
+                Candidate candidate = candidates.get(i);
+                if (entries.remove(candidate.key, candidate.cached)) {
+                    excess--;
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 淘汰时的候选条目，保存取出时的访问时间
+     */
+    private static class Candidate {
+        private final String key;
+        private final CachedResponse cached;
+        // 访问时间相对淘汰开始时间的差值，越小越久未命中
+        private final long age;
+
+        Candidate(String key, CachedResponse cached, long age) {
+            this.key = key;
+            this.cached = cached;
+            this.age = age;
+        }
+    }
+
+    /**
+     * 缓存的响应
+     */
+    private static class CachedResponse {
+        private final String contentType;
+        private final String contentEncoding;
+        private final String vary;
+        private final byte[] body;
+        // 过期时间，System.nanoTime()
+        private final long expiresAt;
+        // 最近一次命中的时间，System.nanoTime()，淘汰时先取出再排序，近似即可，不需要同步
+        private volatile long lastAccess;
+
+        CachedResponse(String contentType, String contentEncoding, String vary, byte[] body, long expiresAt, long lastAccess) {
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.vary = vary;
+            this.body = body;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
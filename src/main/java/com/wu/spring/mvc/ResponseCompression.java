@@ -0,0 +1,163 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.utils.ConfigUtil;
+import freemarker.template.Template;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 响应压缩：按Accept-Encoding协商gzip，并缓存不依赖模型数据的页面的压缩结果
+ * @author Cactus
+ */
+public class ResponseCompression {
+    // 是否开启压缩
+    private static final boolean ENABLED = ConfigUtil.getMvcCompression();
+    // 进行压缩的最小字节数
+    private static final int MIN_SIZE = ConfigUtil.getMvcCompressionMinSize();
+
+    // 模板名到渲染结果的缓存，只缓存没有模型数据的页面
+    private static final Map<String, RenderedTemplate> STATIC_TEMPLATES = new ConcurrentHashMap<>();
+
+    private ResponseCompression() {
+    }
+
+    /**
+     * @return 是否开启了压缩
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @param length 响应体字节数
+     * @return 该大小的响应是否需要压缩
+     */
+    public static boolean shouldCompress(int length) {
+        return ENABLED && length >= MIN_SIZE;
+    }
+
+    /**
+     * 解析Accept-Encoding，gzip或*的q值不为0时认为客户端接受gzip
+     * @param request 请求
+     * @return 是否可以返回gzip压缩的内容
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        if (!ENABLED) {
+            return false;
+        }
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            int semicolon = coding.indexOf(';');
+            String name = (semicolon < 0 ? coding : coding.substring(0, semicolon)).trim();
+            if ("gzip".equalsIgnoreCase(name) || "*".equals(name)) {
+                return semicolon < 0 || !isZeroQuality(coding.substring(semicolon + 1));
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String params) {
+        for (String param : params.split(";")) {
+            int equals = param.indexOf('=');
+            if (equals > 0 && "q".equalsIgnoreCase(param.substring(0, equals).trim())) {
+                try {
+                    return Double.parseDouble(param.substring(equals + 1).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 响应内容随Accept-Encoding变化，告知中间缓存
+     */
+    public static void markVary(HttpServletResponse response) {
+        response.addHeader("Vary", "Accept-Encoding");
+    }
+
+    public static void markCompressed(HttpServletResponse response) {
+        response.setHeader("Content-Encoding", "gzip");
+    }
+
+    /**
+     * 一次性压缩
+     * @return gzip格式的字节
+     */
+    public static byte[] gzip(byte[] bytes, int offset, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 32);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(bytes, offset, length);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * 写出没有模型数据的页面。这类页面的内容只取决于模板本身，渲染结果和压缩结果都只生成一次，
+     * 模板文件变化后Freemarker会返回新的Template对象，此时重新生成。
+     * @param template 模板
+     * @param request  请求
+     * @param response 响应
+     */
+    public static void writeStaticTemplate(Template template, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        RenderedTemplate rendered = STATIC_TEMPLATES.get(template.getName());
+        if (rendered == null || rendered.template != template) {
+            rendered = render(template);
+            STATIC_TEMPLATES.put(template.getName(), rendered);
+        }
+        byte[] body = rendered.bytes;
+        if (rendered.gzipBytes != null) {
+            markVary(response);
+            if (acceptsGzip(request)) {
+                body = rendered.gzipBytes;
+                markCompressed(response);
+            }
+        }
+        response.setContentLength(body.length);
+        OutputStream out = response.getOutputStream();
+        out.write(body);
+        out.flush();
+    }
+
+    private static RenderedTemplate render(Template template) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        template.process(Collections.emptyMap(), writer);
+        writer.close();
+        byte[] bytes = out.toByteArray();
+        byte[] gzipBytes = shouldCompress(bytes.length) ? gzip(bytes, 0, bytes.length) : null;
+        return new RenderedTemplate(template, bytes, gzipBytes);
+    }
+
+    /**
+     * 页面的渲染结果
+     */
+    private static class RenderedTemplate {
+        // 生成结果时使用的模板，用于判断模板是否已更新
+        private final Template template;
+        private final byte[] bytes;
+        // 未达到压缩阈值时为null
+        private final byte[] gzipBytes;
+
+        RenderedTemplate(Template template, byte[] bytes, byte[] gzipBytes) {
+            this.template = template;
+            this.bytes = bytes;
+            this.gzipBytes = gzipBytes;
+        }
+    }
+}
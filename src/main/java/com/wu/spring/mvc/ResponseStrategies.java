@@ -0,0 +1,147 @@
+package com.wu.spring.mvc;
+
+import com.alibaba.fastjson.serializer.ObjectSerializer;
+import com.alibaba.fastjson.serializer.SerializeConfig;
+import com.wu.spring.annotation.mvc.ResponseBody;
+import freemarker.template.Configuration;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * 根据handler方法的声明选择响应策略：JSON、Freemarker视图或字符串
+ * @author Cactus
+ */
+public class ResponseStrategies {
+
+    // 返回字符串数据
+    private static final ResponseStrategy STRING = new ResponseStrategy() {
+        @Override
+        public void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception {
+            ResultResolverHandler.handleStringResult(data, response);
+        }
+    };
+
+    private ResponseStrategies() {
+    }
+
+    /**
+     * @param controllerClass 控制器类
+     * @param method          handler方法
+     * @param cfg             Freemarker配置对象
+     * @return 该handler的响应策略
+     */
+    public static ResponseStrategy forHandler(Class<?> controllerClass, Method method, Configuration cfg) {
+        Class<?> returnType = method.getReturnType();
+        if (AsyncStrategy.isAsyncType(returnType)) {
+            // 异步返回值按泛型参数中的结果类型选择实际的响应策略
+            return new AsyncStrategy(forResultType(controllerClass, method, resultType(method.getGenericReturnType()), cfg));
+        }
+        return forResultType(controllerClass, method, returnType, cfg);
+    }
+
+    private static ResponseStrategy forResultType(Class<?> controllerClass, Method method, Class<?> returnType, Configuration cfg) {
+        // handler中的方法或控制器类被ResponseBody注解时返回JSON
+        if (method.isAnnotationPresent(ResponseBody.class) || controllerClass.isAnnotationPresent(ResponseBody.class)) {
+            return json(returnType);
+        }
+        FreemarkerStrategy freemarker = new FreemarkerStrategy(cfg);
+        if (ModelAndView.class.isAssignableFrom(returnType)) {
+            return freemarker;
+        }
+        if (returnType.isAssignableFrom(ModelAndView.class)) {
+            // 声明类型无法确定时，按实际返回值判断
+            return new DynamicStrategy(freemarker, STRING);
+        }
+        return STRING;
+    }
+
+    /**
+     * 取出CompletableFuture&lt;T&gt;、Callable&lt;T&gt;中T的类型，无法确定时为Object
+     */
+    private static Class<?> resultType(Type genericReturnType) {
+        if (genericReturnType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) genericReturnType).getActualTypeArguments();
+            if (arguments.length == 1) {
+                Type argument = arguments[0];
+                if (argument instanceof ParameterizedType) {
+                    argument = ((ParameterizedType) argument).getRawType();
+                }
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * 为声明的返回类型预先取好序列化器
+     */
+    private static ResponseStrategy json(Class<?> returnType) {
+        ObjectSerializer serializer = null;
+        if (returnType != void.class && returnType != Object.class && !returnType.isInterface()) {
+            serializer = SerializeConfig.getGlobalInstance().getObjectWriter(returnType);
+        }
+        return new JsonStrategy(returnType, serializer);
+    }
+
+    /**
+     * 返回JSON数据
+     */
+    private static class JsonStrategy implements ResponseStrategy {
+        private final Class<?> returnType;
+        private final ObjectSerializer serializer;
+
+        JsonStrategy(Class<?> returnType, ObjectSerializer serializer) {
+            this.returnType = returnType;
+            this.serializer = serializer;
+        }
+
+        @Override
+        public void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception {
+            ResultResolverHandler.handleJsonResult(data, returnType, serializer, request, response);
+        }
+    }
+
+    /**
+     * 用freemarker解析ModelAndView
+     */
+    private static class FreemarkerStrategy implements ResponseStrategy {
+        private final Configuration cfg;
+
+        FreemarkerStrategy(Configuration cfg) {
+            this.cfg = cfg;
+        }
+
+        @Override
+        public void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception {
+            ResultResolverHandler.handlerFreemarkerResult(data, cfg, request, response);
+        }
+    }
+
+    /**
+     * 返回值为ModelAndView时使用视图，否则返回字符串
+     */
+    private static class DynamicStrategy implements ResponseStrategy {
+        private final ResponseStrategy view;
+        private final ResponseStrategy string;
+
+        DynamicStrategy(ResponseStrategy view, ResponseStrategy string) {
+            this.view = view;
+            this.string = string;
+        }
+
+        @Override
+        public void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception {
+            if (data instanceof ModelAndView) {
+                view.handle(data, request, response);
+            } else {
+                string.handle(data, request, response);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.wu.spring.mvc;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 响应策略，在映射handler时根据方法声明确定，请求时直接调用，不再做注解判断
+ * @author Cactus
+ */
+public interface ResponseStrategy {
+    /**
+     * @param data     handler的返回值
+     * @param request  请求
+     * @param response 响应
+     * @throws Exception 写出响应时的异常
+     */
+    void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception;
+}
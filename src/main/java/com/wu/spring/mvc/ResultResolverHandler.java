@@ -1,6 +1,10 @@
 package com.wu.spring.mvc;
 
-import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.ObjectSerializer;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+import com.wu.spring.log.Logger;
 import com.wu.spring.utils.ConfigUtil;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
@@ -10,7 +14,10 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -18,12 +25,18 @@ import java.util.Map;
  * 主要根据不同的请求来做出不同的响应。
  */
 public class ResultResolverHandler {
+    private static final Logger LOGGER = Logger.getLogger(ResultResolverHandler.class);
+    // 预先拼好的Content-Type，一次设置类型和编码
+    private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final String HTML_CONTENT_TYPE = "text/html;charset=UTF-8";
+    // 页面是否边渲染边发送
+    private static final boolean STREAMING_RENDER = "streaming".equalsIgnoreCase(ConfigUtil.getMvcTemplateRenderMode());
 
 	/**
      * 返回字符串数据
      */
     public static void handleStringResult(Object data, HttpServletResponse response) throws IOException {
-        System.out.println("String resolver");
+        LOGGER.debug("String resolver");
         response.setCharacterEncoding("UTF-8");
         PrintWriter writer = response.getWriter();
         writer.write(data.toString());
@@ -34,13 +47,43 @@ public class ResultResolverHandler {
      * 返回JSON数据
      */
     public static void handleJsonResult(Object data, HttpServletResponse response) throws IOException {
-    	response.setContentType("application/json");
-        response.setCharacterEncoding("UTF-8");
-        PrintWriter writer = response.getWriter();
-        String json = JSON.toJSON(data).toString();
-        writer.write(json);
-        writer.flush();
-        writer.close();
+        handleJsonResult(data, null, null, null, response);
+    }
+
+    /**
+     * 返回JSON数据，返回值的实际类型与声明类型一致时直接使用预先取好的序列化器
+     * @param data         返回值
+     * @param declaredType 方法声明的返回类型
+     * @param serializer   声明类型对应的序列化器，可为null
+     * @param request      请求，为null时不使用非阻塞写出
+     * @param response     响应
+     */
+    public static void handleJsonResult(Object data, Class<?> declaredType, ObjectSerializer serializer, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(JSON_CONTENT_TYPE);
+        // SerializeWriter写满自己的字符缓冲区就交给utf8Writer，字符直接编码进复用的字节缓冲区，
+        // 不再生成中间的JSONObject、String以及整个响应的char[]和byte[]副本
+        PooledResponseOutputStream out = new PooledResponseOutputStream(request, response);
+        Writer utf8Writer = out.utf8Writer();
+        SerializeWriter writer = new SerializeWriter(utf8Writer);
+        try {
+            JSONSerializer jsonSerializer = new JSONSerializer(writer);
+            if (serializer != null && data != null && data.getClass() == declaredType) {
+                serializer.write(jsonSerializer, data, null, null, 0);
+            } else {
+                jsonSerializer.write(data);
+            }
+            writer.flush();
+        } catch (JSONException e) {
+            // SerializeWriter把写出时的IOException包装成JSONException，还原后交给容器处理客户端断开
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        } finally {
+            writer.close();
+        }
+        utf8Writer.close();
+        out.close();
     }
     /**
      *用JSP解析器解析ModelAndView
@@ -89,11 +132,21 @@ public class ResultResolverHandler {
         	    //重定向
                 response.sendRedirect(request.getContextPath() + path);
             } else {
-            	Template temp = cfg.getTemplate(path);
-                response.setContentType("text/html");
-                response.setCharacterEncoding("UTF-8");
-                PrintWriter writer = response.getWriter();
+            	Template temp = FreemarkerTemplates.getTemplate(cfg, path);
+                response.setContentType(HTML_CONTENT_TYPE);
+                if (ResponseCompression.isEnabled() && (view.getModel() == null || view.getModel().isEmpty())) {
+                    // 没有模型数据的页面直接使用缓存的渲染和压缩结果
+                    ResponseCompression.writeStaticTemplate(temp, request, response);
+                    return;
+                }
+                // 页面编码到复用的定长缓冲区，每个渲染中的页面最多占用一个缓冲区
+                PooledResponseOutputStream out = new PooledResponseOutputStream(request, response);
+                // streaming时每写满一次缓冲区就发给客户端，模板中的<#flush>也会立即生效；
+                // 否则能放进缓冲区的页面结束时带Content-Length一次写出
+                out.setStreaming(STREAMING_RENDER);
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
                 temp.process(view.getModel(), writer);
+                writer.close();
             }
         }
     }
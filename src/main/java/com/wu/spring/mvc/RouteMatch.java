@@ -0,0 +1,26 @@
+package com.wu.spring.mvc;
+
+import java.util.Map;
+
+/**
+ * 路由匹配结果，同时携带handler和解析出的路径变量
+ * @author Cactus
+ */
+public class RouteMatch {
+    private final Handler handler;
+    // key为{}中的变量名，value为实际请求路径中的值
+    private final Map<String, String> pathVariables;
+
+    public RouteMatch(Handler handler, Map<String, String> pathVariables) {
+        this.handler = handler;
+        this.pathVariables = pathVariables;
+    }
+
+    public Handler getHandler() {
+        return handler;
+    }
+
+    public Map<String, String> getPathVariables() {
+        return pathVariables;
+    }
+}
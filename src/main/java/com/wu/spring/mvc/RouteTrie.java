@@ -0,0 +1,157 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.constants.RequestMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由前缀树，在initHandlerMappings时一次性构建。
+ * 每种请求方法对应一棵按路径段组织的树，静态段通过哈希查找，{var}占位段统一放在一个通配分支上，
+ * 因此一次遍历请求路径的各段即可同时得到handler和路径变量。
+ * @author Cactus
+ */
+public class RouteTrie {
+    // 每种请求方法对应的根节点
+    private final Map<RequestMethod, Node> roots = new EnumMap<>(RequestMethod.class);
+
+    /**
+     * 注册路由
+     * @param requestMethod 请求方法
+     * @param pattern       路由模板，如/user/findUser/{id}
+     * @param handler       处理器
+     */
+    public void register(RequestMethod requestMethod, String pattern, Handler handler) {
+        Node node = roots.get(requestMethod);
+        if (node == null) {
+            node = new Node();
+            roots.put(requestMethod, node);
+        }
+        List<String> varNames = new ArrayList<>();
+        for (String segment : split(pattern)) {
+            if (isVariable(segment)) {
+                // 所有占位段共用一个通配分支，变量名记录在叶子节点上
+                if (node.varChild == null) {
+                    node.varChild = new Node();
+                }
+                varNames.add(segment.substring(1, segment.length() - 1).trim());
+                node = node.varChild;
+            } else {
+                Node child = node.staticChildren.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    node.staticChildren.put(segment, child);
+                }
+                node = child;
+            }
+        }
+        node.handler = handler;
+        node.varNames = varNames.toArray(new String[0]);
+    }
+
+    /**
+     * 匹配请求路径
+     * @param requestMethod 请求方法
+     * @param path          实际请求路径
+     * @return 匹配结果，未找到时返回null
+     */
+    public RouteMatch match(RequestMethod requestMethod, String path) {
+        Node root = roots.get(requestMethod);
+        if (root == null) {
+            return null;
+        }
+        List<String> segments = split(path);
+        String[] values = new String[segments.size()];
+        Node leaf = find(root, segments, 0, values, 0);
+        if (leaf == null) {
+            return null;
+        }
+        Map<String, String> pathVariables;
+        if (leaf.varNames.length == 0) {
+            pathVariables = Collections.emptyMap();
+        } else {
+            pathVariables = new HashMap<>(leaf.varNames.length * 2);
+            for (int i = 0; i < leaf.varNames.length; i++) {
+                pathVariables.put(leaf.varNames[i], values[i]);
+            }
+        }
+        return new RouteMatch(leaf.handler, pathVariables);
+    }
+
+    /**
+     * @return 是否没有注册任何路由
+     */
+    public boolean isEmpty() {
+        return roots.isEmpty();
+    }
+
+    /**
+     * 逐段向下查找，静态段优先，静态分支走不通时才回退到通配分支。
+     * @param node      当前节点
+     * @param segments  请求路径段
+     * @param index     当前段的位置
+     * @param values    已捕获的路径变量值
+     * @param varCount  已捕获的路径变量个数
+     * @return 匹配到的叶子节点
+     */
+    private static Node find(Node node, List<String> segments, int index, String[] values, int varCount) {
+        if (index == segments.size()) {
+            return node.handler != null ? node : null;
+        }
+        String segment = segments.get(index);
+        Node child = node.staticChildren.get(segment);
+        if (child != null) {
+            Node leaf = find(child, segments, index + 1, values, varCount);
+            if (leaf != null) {
+                return leaf;
+            }
+        }
+        if (node.varChild != null) {
+            values[varCount] = segment.trim();
+            return find(node.varChild, segments, index + 1, values, varCount + 1);
+        }
+        return null;
+    }
+
+    /**
+     * 按"/"切分路径，忽略空段，效果等同于先合并多余的"/"再split。
+     * @param path 路径
+     * @return 路径段
+     */
+    static List<String> split(String path) {
+        List<String> segments = new ArrayList<>();
+        int length = path.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static class Node {
+        // 静态子节点，key为路径段
+        private final Map<String, Node> staticChildren = new HashMap<>();
+        // {var}通配子节点
+        private Node varChild;
+        // 叶子节点上的处理器
+        private Handler handler;
+        // 从根到该节点依次出现的路径变量名
+        private String[] varNames;
+    }
+}
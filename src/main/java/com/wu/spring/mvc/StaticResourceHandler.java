@@ -0,0 +1,375 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.utils.ConfigUtil;
+import org.apache.catalina.Globals;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 静态资源处理器，处理以静态资源路径开头的GET/HEAD请求。
+ * 请求路径先按UTF-8解码再解析为文件，支持ETag/Last-Modified条件请求、单段Range请求；
+ * 小文件放入按字节数限制的LRU缓存，大文件优先交给Tomcat的sendfile，不支持时用FileChannel传输。
+ * @author Cactus
+ */
+public class StaticResourceHandler {
+    // 常见文件类型，其余按文件名推断
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("css", "text/css;charset=UTF-8");
+        MIME_TYPES.put("js", "application/javascript;charset=UTF-8");
+        MIME_TYPES.put("json", "application/json;charset=UTF-8");
+        MIME_TYPES.put("html", "text/html;charset=UTF-8");
+        MIME_TYPES.put("htm", "text/html;charset=UTF-8");
+        MIME_TYPES.put("txt", "text/plain;charset=UTF-8");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("mp4", "video/mp4");
+        MIME_TYPES.put("pdf", "application/pdf");
+    }
+
+    // 请求路径前缀，如/asset/
+    private final String urlPrefix;
+    // 静态资源所在目录
+    private final File root;
+    private final String rootPath;
+    // 可缓存的单个文件最大字节数
+    private final int cacheFileSize;
+    private final String cacheControl;
+    private final ResourceCache cache;
+
+    /**
+     * @param urlPrefix 请求路径前缀
+     * @param root      静态资源所在目录
+     */
+    public StaticResourceHandler(String urlPrefix, File root) throws IOException {
+        this.urlPrefix = urlPrefix.endsWith("/") ? urlPrefix : urlPrefix + "/";
+        this.root = root.getCanonicalFile();
+        this.rootPath = this.root.getPath() + File.separator;
+        this.cacheFileSize = ConfigUtil.getAppAssetCacheFileSize();
+        this.cacheControl = "max-age=" + ConfigUtil.getAppAssetMaxAge();
+        this.cache = new ResourceCache(ConfigUtil.getAppAssetCacheSize());
+    }
+
+    /**
+     * @param path 去掉上下文路径后的请求路径
+     * @return 是否由静态资源处理器处理
+     */
+    public boolean supports(String path) {
+        return path.startsWith(urlPrefix);
+    }
+
+    /**
+     * 处理静态资源请求
+     * @param path     去掉上下文路径后的请求路径
+     * @param request  请求
+     * @param response 响应
+     */
+    public void handle(String path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String method = request.getMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            response.setHeader("Allow", "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String relativePath = decode(path.substring(urlPrefix.length()));
+        if (relativePath == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        File file = resolve(relativePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = file.length();
+        // 文件系统支持时精确到纳秒，同一秒内修改且长度不变时ETag和缓存也会失效
+        long modifiedNanos = Files.getLastModifiedTime(file.toPath()).to(TimeUnit.NANOSECONDS);
+        // 精确到秒，与HTTP日期格式一致
+        long lastModified = TimeUnit.NANOSECONDS.toMillis(modifiedNanos) / 1000 * 1000;
+        String etag = "W/\"" + length + "-" + Long.toHexString(modifiedNanos) + "\"";
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", cacheControl);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(contentType(file.getName()));
+
+        long start = 0;
+        long end = length;
+        String range = request.getHeader("Range");
+        if (range != null && isIfRangeMatched(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+        if (head) {
+            return;
+        }
+        byte[] bytes = length <= cacheFileSize ? cache.get(file, length, modifiedNanos) : null;
+        if (bytes != null && bytes.length == length) {
+            ServletOutputStream out = response.getOutputStream();
+            out.write(bytes, (int) start, (int) (end - start));
+            out.flush();
+        } else if (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+            // 交给连接器用sendfile直接从文件写入socket
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.getAbsolutePath());
+            request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, start);
+            request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, end);
+        } else {
+            transfer(file, start, end, response.getOutputStream());
+        }
+    }
+
+    /**
+     * 按UTF-8解码请求路径，+保持原样，与路径中的%2B一致
+     * @return 编码不合法或包含空字符时返回null
+     */
+    private static String decode(String encodedPath) {
+        if (encodedPath.indexOf('%') < 0) {
+            return encodedPath;
+        }
+        try {
+            String path = URLDecoder.decode(encodedPath.replace("+", "%2B"), "UTF-8");
+            return path.indexOf('\0') >= 0 ? null : path;
+        } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把解码后的请求路径解析为静态资源目录下的文件，防止通过..访问目录以外的文件
+     * @return 文件不存在或不合法时返回null
+     */
+    private File resolve(String relativePath) throws IOException {
+        if (relativePath.isEmpty()) {
+            return null;
+        }
+        File file = new File(root, relativePath).getCanonicalFile();
+        if (!file.getPath().startsWith(rootPath) || !file.isFile()) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * If-None-Match优先，没有时才比较If-Modified-Since
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * 没有If-Range，或If-Range与当前的ETag/Last-Modified一致时才按Range返回
+     */
+    private static boolean isIfRangeMatched(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.trim().equals(etag);
+        }
+        return getDateHeader(request, "If-Range") == lastModified;
+    }
+
+    private static boolean matchesEtag(String header, String etag) {
+        // 弱比较，忽略W/前缀
+        String opaque = etag.substring(2);
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate)) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 解析单段Range，如bytes=0-99、bytes=100-、bytes=-100
+     * @param range  Range请求头
+     * @param length 文件长度
+     * @return 长度为2时为[起始, 结束)；长度为0时表示忽略Range返回全部内容；null表示范围无法满足
+     */
+    static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            // 不支持的单位或多段请求，返回全部内容
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // 最后n个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length : Math.min(Long.parseLong(last) + 1, length);
+                if (end <= start) {
+                    return start >= length ? null : new long[0];
+                }
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    /**
+     * 用FileChannel把文件的指定区间写入输出流
+     */
+    private static void transfer(File file, long start, long end, ServletOutputStream out) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+        }
+        out.flush();
+    }
+
+    private static String contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot >= 0) {
+            String type = MIME_TYPES.get(fileName.substring(dot + 1).toLowerCase());
+            if (type != null) {
+                return type;
+            }
+        }
+        String type = URLConnection.guessContentTypeFromName(fileName);
+        return type != null ? type : "application/octet-stream";
+    }
+
+    /**
+     * 按总字节数限制的LRU缓存，文件修改时间（纳秒）或长度变化后重新读取
+     */
+    private static class ResourceCache {
+        private final long capacity;
+        private long size;
+        // accessOrder为true，迭代顺序即最近最少使用的顺序
+        private final LinkedHashMap<String, CachedResource> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+        ResourceCache(long capacity) {
+            this.capacity = capacity;
+        }
+
+        byte[] get(File file, long length, long modifiedNanos) throws IOException {
+            String key = file.getPath();
+            synchronized (this) {
+                CachedResource cached = entries.get(key);
+                if (cached != null && cached.modifiedNanos == modifiedNanos && cached.bytes.length == length) {
+                    return cached.bytes;
+                }
+            }
+            byte[] bytes = read(file);
+            synchronized (this) {
+                CachedResource old = entries.remove(key);
+                if (old != null) {
+                    size -= old.bytes.length;
+                }
+                if (bytes.length <= capacity) {
+                    entries.put(key, new CachedResource(bytes, modifiedNanos));
+                    size += bytes.length;
+                    evict();
+                }
+            }
+            return bytes;
+        }
+
+        private void evict() {
+            Iterator<CachedResource> iterator = entries.values().iterator();
+            while (size > capacity && iterator.hasNext()) {
+                size -= iterator.next().bytes.length;
+                iterator.remove();
+            }
+        }
+
+        private static byte[] read(File file) throws IOException {
+            return Files.readAllBytes(file.toPath());
+        }
+    }
+
+    private static class CachedResource {
+        private final byte[] bytes;
+        private final long modifiedNanos;
+
+        CachedResource(byte[] bytes, long modifiedNanos) {
+            this.bytes = bytes;
+            this.modifiedNanos = modifiedNanos;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.wu.spring.mvc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶，按GCRA算法实现：只记录桶被填满的理论时刻，每次请求用一次CAS推进该时刻，
+ * 不需要定时补充令牌，也不需要加锁
+ * @author Cactus
+ */
+class TokenBucket {
+    // 所有时刻都相对于该时刻，保证为非负数
+    private static final long ORIGIN = System.nanoTime();
+    // 间隔和容量的上限（约73年），二者与当前时刻相加时不会溢出
+    private static final long MAX_NANOS = Long.MAX_VALUE / 4;
+
+    // 补充一个令牌的纳秒数
+    private final long intervalNanos;
+    // 允许预支的纳秒数，即容量对应的时长
+    private final long capacityNanos;
+    // 下一个令牌的理论到达时刻，不大于当前时刻时桶是满的
+    private final AtomicLong theoreticalArrival = new AtomicLong();
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数，必须为正数
+     * @param burst            桶的容量，必须为正数
+     */
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("令牌桶的速率和容量必须是正数: " + permitsPerSecond + ", " + burst);
+        }
+        // 速率极低时间隔和容量都按上限处理，结果只会更严格，不会因为溢出变成不限流
+        this.intervalNanos = Math.max(1L, Math.min(MAX_NANOS, (long) (1000000000L / permitsPerSecond)));
+        this.capacityNanos = intervalNanos > MAX_NANOS / burst ? MAX_NANOS : intervalNanos * burst;
+    }
+
+    /**
+     * 尝试取一个令牌
+     * @return 取到时返回0，否则返回还需等待的纳秒数
+     */
+    long tryAcquire() {
+        long now = now();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            long excess = next - now - capacityNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return 桶是否已经补满，补满的桶与新建的桶状态相同，可以丢弃
+     */
+    boolean isFull() {
+        return theoreticalArrival.get() <= now();
+    }
+
+    private static long now() {
+        return System.nanoTime() - ORIGIN;
+    }
+}
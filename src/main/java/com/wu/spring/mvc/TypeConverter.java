@@ -0,0 +1,13 @@
+package com.wu.spring.mvc;
+
+/**
+ * 类型转换器, 由于请求得到的是String类型，需要转化为method要求的类型。
+ * @author Cactus
+ */
+public interface TypeConverter {
+    /**
+     * @param value 请求得到的参数值
+     * @return 转换后的参数值
+     */
+    Object convert(String value);
+}
@@ -0,0 +1,61 @@
+package com.wu.spring.tomcat;
+
+import com.wu.spring.log.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接器处理请求的执行器工厂
+ * @author Cactus
+ */
+public class RequestExecutors {
+    private static final Logger LOGGER = Logger.getLogger(RequestExecutors.class);
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    private RequestExecutors() {
+    }
+
+    /**
+     * 每个请求一个虚拟线程的执行器。
+     * 项目按Java 8编译，因此通过反射调用Thread.ofVirtual()，运行在Java 21以下时退回到按需创建平台线程的线程池。
+     * 执行器不由Tomcat管理，调用方需在连接器停止后关闭
+     * @param namePrefix 线程名前缀
+     * @return 执行器
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("当前JVM不支持虚拟线程，使用平台线程执行请求");
+            return Executors.newCachedThreadPool(namedThreadFactory(namePrefix, true));
+        }
+    }
+
+    /**
+     * @param namePrefix 线程名前缀
+     * @param daemon     是否为守护线程
+     * @return 按序号命名线程的线程工厂
+     */
+    public static ThreadFactory namedThreadFactory(final String namePrefix, final boolean daemon) {
+        return new ThreadFactory() {
+            private final AtomicLong index = new AtomicLong();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, namePrefix + index.getAndIncrement());
+                thread.setDaemon(daemon);
+                return thread;
+            }
+        };
+    }
+}
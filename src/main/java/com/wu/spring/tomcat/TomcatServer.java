@@ -1,10 +1,25 @@
 package com.wu.spring.tomcat;
 
 import com.wu.spring.ioc.DefaultBeanFactory;
+import com.wu.spring.log.Logger;
+import com.wu.spring.metrics.StartupTrace;
 import com.wu.spring.mvc.DispatcherServlet;
+import com.wu.spring.utils.ConfigUtil;
 import org.apache.catalina.Context;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardThreadExecutor;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 /**
  * 内置Tomcat服务器的配置
@@ -12,6 +27,10 @@ import org.apache.catalina.startup.Tomcat;
  *
  */
 public class TomcatServer {
+    private static final Logger LOGGER = Logger.getLogger(TomcatServer.class);
+    private static final String NIO_PROTOCOL = "org.apache.coyote.http11.Http11NioProtocol";
+    private static final String NIO2_PROTOCOL = "org.apache.coyote.http11.Http11Nio2Protocol";
+
     private Tomcat tomcat;
     private String[] args;
 
@@ -24,20 +43,93 @@ public class TomcatServer {
     	Tomcat tomcat = new Tomcat();
     	DefaultBeanFactory beanFactory = DefaultBeanFactory.getInstance();
     	if(!beanFactory.isEmpty()) {
-    		System.out.println("beanFactory初始化成功");
+    		LOGGER.info("beanFactory初始化成功");
     	}
         //设置绑定的ip及端口号
-        tomcat.setHostname("localhost");
-        tomcat.setPort(8080);
+        tomcat.setHostname(ConfigUtil.getServerHostname());
+        Connector connector = createConnector(tomcat);
+        tomcat.getService().addConnector(connector);
+        tomcat.setConnector(connector);
         final Context context = tomcat.addContext("/", null);
-        Tomcat.addServlet(context, "dispatch", new DispatcherServlet());
+        Wrapper wrapper = Tomcat.addServlet(context, "dispatch", new DispatcherServlet());
+        // 支持返回CompletableFuture/Callable的异步handler
+        wrapper.setAsyncSupported(true);
         context.addServletMapping("/", "dispatch");
         try {
+            long start = System.nanoTime();
             tomcat.init();
             tomcat.start();
+            StartupTrace.record("tomcat_start", start);
+            LOGGER.info("启动完成, JVM已运行{}ms", ManagementFactory.getRuntimeMXBean().getUptime());
             tomcat.getServer().await();
         } catch (LifecycleException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * 根据配置创建连接器：协议、地址端口、长连接参数以及处理请求的执行器
+     * @param tomcat tomcat
+     * @return 连接器
+     */
+    private Connector createConnector(Tomcat tomcat) {
+        String protocol = "nio2".equalsIgnoreCase(ConfigUtil.getServerProtocol()) ? NIO2_PROTOCOL : NIO_PROTOCOL;
+        Connector connector = new Connector(protocol);
+        connector.setPort(ConfigUtil.getServerPort());
+        String address = ConfigUtil.getServerAddress();
+        if (address != null && !address.trim().isEmpty()) {
+            connector.setProperty("address", address.trim());
+        }
+        connector.setProperty("acceptCount", String.valueOf(ConfigUtil.getServerAcceptCount()));
+        connector.setProperty("maxConnections", String.valueOf(ConfigUtil.getServerMaxConnections()));
+        connector.setProperty("keepAliveTimeout", String.valueOf(ConfigUtil.getServerKeepAliveTimeout()));
+        connector.setProperty("maxKeepAliveRequests", String.valueOf(ConfigUtil.getServerMaxKeepAliveRequests()));
+
+        Executor executor = createExecutor(tomcat);
+        ProtocolHandler protocolHandler = connector.getProtocolHandler();
+        if (protocolHandler instanceof AbstractProtocol) {
+            ((AbstractProtocol<?>) protocolHandler).setExecutor(executor);
+        }
+        if (executor instanceof ExecutorService) {
+            shutdownWithConnector(connector, (ExecutorService) executor);
+        }
+        LOGGER.info("连接器协议: {} 端口: {}", protocol, ConfigUtil.getServerPort());
+        return connector;
+    }
+
+    /**
+     * 虚拟线程执行器不归Service管理，连接器停止后不再接收请求，此时关闭
+     * @param connector 连接器
+     * @param executor  执行器
+     */
+    private void shutdownWithConnector(Connector connector, final ExecutorService executor) {
+        connector.addLifecycleListener(new LifecycleListener() {
+            @Override
+            public void lifecycleEvent(LifecycleEvent event) {
+                if (Lifecycle.AFTER_STOP_EVENT.equals(event.getType())) {
+                    executor.shutdown();
+                }
+            }
+        });
+    }
+
+    /**
+     * 配置为虚拟线程模式时，每个请求交给一个新的虚拟线程执行；
+     * 否则使用按配置设置大小的Tomcat线程池，由Service负责其生命周期
+     * @param tomcat tomcat
+     * @return 执行器
+     */
+    private Executor createExecutor(Tomcat tomcat) {
+        if (RequestExecutors.VIRTUAL.equalsIgnoreCase(ConfigUtil.getServerExecutor())) {
+            LOGGER.info("请求执行方式: virtual");
+            return RequestExecutors.newVirtualThreadPerTaskExecutor(ConfigUtil.getServerVirtualThreadPrefix());
+        }
+        StandardThreadExecutor executor = new StandardThreadExecutor();
+        executor.setName("myspringExecutor");
+        executor.setNamePrefix("myspring-exec-");
+        executor.setMaxThreads(ConfigUtil.getServerMaxThreads());
+        executor.setMinSpareThreads(ConfigUtil.getServerMinSpareThreads());
+        tomcat.getService().addExecutor(executor);
+        return executor;
+    }
 }
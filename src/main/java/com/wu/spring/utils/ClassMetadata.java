@@ -0,0 +1,66 @@
+package com.wu.spring.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 从class文件中读出的类信息，类名均为用"."分隔的二进制名
+ * @author Cactus
+ */
+public class ClassMetadata {
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private final String className;
+    private final int accessFlags;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final Set<String> annotationNames;
+
+    ClassMetadata(String className, int accessFlags, String superClassName, List<String> interfaceNames, Set<String> annotationNames) {
+        this.className = className;
+        this.accessFlags = accessFlags;
+        this.superClassName = superClassName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.annotationNames = Collections.unmodifiableSet(annotationNames);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return 父类名，java.lang.Object没有父类时为null，接口为java.lang.Object
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * @return 直接实现的接口名，接口为其直接继承的接口
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * @return 类上运行时可见的注解类名，不包括从父类继承的注解
+     */
+    public Set<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (accessFlags & ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (accessFlags & ACC_ABSTRACT) != 0;
+    }
+}
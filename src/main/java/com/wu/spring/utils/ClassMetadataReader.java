@@ -0,0 +1,206 @@
+package com.wu.spring.utils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 直接解析class文件，不加载类即可得到类名、访问标志、父类、接口和类上的注解。
+ * 只读取常量池、类头和类的RuntimeVisibleAnnotations属性，字段和方法整体跳过。
+ * @author Cactus
+ */
+public class ClassMetadataReader {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // 常量池中的标记
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private ClassMetadataReader() {
+    }
+
+    /**
+     * 读取class文件
+     * @param in class文件的输入流，由调用方关闭
+     * @return 类信息
+     * @throws IOException 不是合法的class文件时抛出
+     */
+    public static ClassMetadata read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 8192));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("不是class文件");
+        }
+        // minor_version, major_version
+        data.readUnsignedShort();
+        data.readUnsignedShort();
+
+        int count = data.readUnsignedShort();
+        // 只保存Utf8常量和Class常量指向的Utf8下标
+        String[] utf8 = new String[count];
+        int[] classNameIndex = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = data.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNameIndex[i] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(data, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(data, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(data, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(data, 8);
+                    // 占两个位置
+                    i++;
+                    break;
+                default:
+                    throw new IOException("未知的常量池标记: " + tag);
+            }
+        }
+
+        int accessFlags = data.readUnsignedShort();
+        String className = className(utf8, classNameIndex, data.readUnsignedShort());
+        String superClassName = className(utf8, classNameIndex, data.readUnsignedShort());
+        int interfaceCount = data.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(className(utf8, classNameIndex, data.readUnsignedShort()));
+        }
+        // 字段和方法的结构相同
+        skipMembers(data);
+        skipMembers(data);
+
+        Set<String> annotationNames = new LinkedHashSet<>();
+        int attributeCount = data.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = utf8[data.readUnsignedShort()];
+            int length = data.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+                int annotationCount = data.readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    annotationNames.add(descriptorToClassName(utf8[data.readUnsignedShort()]));
+                    skipElementValuePairs(data);
+                }
+            } else {
+                skip(data, length);
+            }
+        }
+        return new ClassMetadata(className, accessFlags, superClassName, interfaceNames, annotationNames);
+    }
+
+    private static String className(String[] utf8, int[] classNameIndex, int index) {
+        if (index == 0) {
+            return null;
+        }
+        return utf8[classNameIndex[index]].replace('/', '.');
+    }
+
+    /**
+     * Lcom/wu/Foo;转换为com.wu.Foo
+     */
+    private static String descriptorToClassName(String descriptor) {
+        if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+            descriptor = descriptor.substring(1, descriptor.length() - 1);
+        }
+        return descriptor.replace('/', '.');
+    }
+
+    private static void skipMembers(DataInputStream data) throws IOException {
+        int count = data.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // access_flags, name_index, descriptor_index
+            skip(data, 6);
+            int attributeCount = data.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                skip(data, 2);
+                skip(data, data.readInt());
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream data) throws IOException {
+        int pairCount = data.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            // element_name_index
+            skip(data, 2);
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                // 枚举：类型名和常量名
+                skip(data, 4);
+                break;
+            case '@':
+                // 嵌套注解
+                skip(data, 2);
+                skipElementValuePairs(data);
+                break;
+            case '[':
+                int count = data.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(data);
+                }
+                break;
+            default:
+                // 基本类型、String和Class都是一个常量池下标
+                skip(data, 2);
+                break;
+        }
+    }
+
+    private static void skip(DataInputStream data, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = data.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("class文件不完整");
+            }
+            remaining -= skipped;
+        }
+    }
+}
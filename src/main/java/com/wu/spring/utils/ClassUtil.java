@@ -1,12 +1,24 @@
 package com.wu.spring.utils;
 
+import com.wu.spring.index.ComponentIndex;
+import com.wu.spring.log.Logger;
+
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -15,6 +27,9 @@ import java.util.jar.JarFile;
  * 类加载的相关工具类
  */
 public class ClassUtil {
+    // 每个任务顺序加载的类个数
+    private static final int LOAD_BATCH_SIZE = 64;
+
     /**
      * 获取类加载器
      */
@@ -60,7 +75,32 @@ public class ClassUtil {
      * 获取指定包名下的所有类，在配置文件中会配置
      */
     public static Set<Class<?>> getClassSet(String packageName) {
-        Set<Class<?>> classSet = new HashSet<Class<?>>();
+        return loadClasses(getClassNames(packageName));
+    }
+
+    /**
+     * 获取指定包名下的所有类名，只列出文件，不加载类
+     */
+    public static List<String> getClassNames(String packageName) {
+        return getClassNames(packageName, false);
+    }
+
+    /**
+     * 获取指定包名下的组件类名：被组件注解直接标注的类，注解与组件索引相同，
+     * 以及在该包中继承或实现了这些类的类，注入接口或抽象类时需要找到其实现类。
+     * 直接解析class文件判断，不加载类，实体类、DTO、只有其他注解的类以及注解类型本身都不会成为候选
+     */
+    public static List<String> getAnnotatedClassNames(String packageName) {
+        return getClassNames(packageName, true);
+    }
+
+    /**
+     * @param annotatedOnly 是否只保留组件类
+     */
+    private static List<String> getClassNames(String packageName, boolean annotatedOnly) {
+        List<String> classNames = new ArrayList<String>();
+        // 只保留组件类时先读出全部类的信息，再按父类和接口筛选
+        Map<String, ClassMetadata> metadata = annotatedOnly ? new HashMap<String, ClassMetadata>() : null;
         try {
             Enumeration<URL> urls = getClassLoader().getResources(packageName.replace(".", "/"));
             while (urls.hasMoreElements()) {
@@ -69,7 +109,7 @@ public class ClassUtil {
                     String protocol = url.getProtocol();
                     if (protocol.equals("file")) {
                         String packagePath = url.getPath().replaceAll("%20", " ");
-                        addClass(classSet, packagePath, packageName);
+                        addClass(classNames, metadata, packagePath, packageName);
                     } else if (protocol.equals("jar")) {
                         JarURLConnection jarURLConnection = (JarURLConnection) url.openConnection();
                         if (jarURLConnection != null) {
@@ -81,7 +121,10 @@ public class ClassUtil {
                                     String jarEntryName = jarEntry.getName();
                                     if (jarEntryName.endsWith(".class")) {
                                         String className = jarEntryName.substring(0, jarEntryName.lastIndexOf(".")).replaceAll("/", ".");
-                                        doAddClass(classSet, className);
+                                        classNames.add(className);
+                                        if (metadata != null) {
+                                            readMetadata(jarFile.getInputStream(jarEntry), className, metadata);
+                                        }
                                     }
                                 }
                             }
@@ -92,16 +135,38 @@ public class ClassUtil {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return classSet;
+        return metadata != null ? selectComponents(classNames, metadata) : classNames;
+    }
+
+    /**
+     * 加载类但不初始化。类较多时在ForkJoinPool中按CPU核数并行加载
+     * @param classNames 类名
+     * @return 类对象集合
+     */
+    public static Set<Class<?>> loadClasses(List<String> classNames) {
+        // 工作线程的上下文类加载器可能不同，统一使用调用线程的类加载器
+        ClassLoader classLoader = getClassLoader();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        if (classNames.size() <= LOAD_BATCH_SIZE || parallelism <= 1) {
+            return new HashSet<Class<?>>(new LoadClassTask(classNames, 0, classNames.size(), classLoader).compute());
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new HashSet<Class<?>>(pool.invoke(new LoadClassTask(classNames, 0, classNames.size(), classLoader)));
+        } finally {
+            pool.shutdown();
+        }
     }
+
     /**
-     * 将指定路径下的类对象添加到集合classSet中
+     * 将指定路径下的类名添加到集合classNames中
      *
-     * @param classSet    集合
+     * @param classNames  集合
+     * @param metadata    不为null时读取类信息放入其中
      * @param packagePath 包的路径
      * @param packageName 包的名字
      */
-    private static void addClass(Set<Class<?>> classSet, String packagePath, String packageName) {
+    private static void addClass(List<String> classNames, Map<String, ClassMetadata> metadata, String packagePath, String packageName) throws IOException {
         File[] files = new File(packagePath).listFiles(new FileFilter() {
             @Override
             public boolean accept(File file) {
@@ -117,7 +182,10 @@ public class ClassUtil {
                 if (packageName != null && packageName != "") {
                     className = packageName + "." + className;
                 }
-                doAddClass(classSet, className);
+                classNames.add(className);
+                if (metadata != null) {
+                    readMetadata(new FileInputStream(file), className, metadata);
+                }
             } else {  // 如果不是文件，说明下面还有包，继续向下寻找类文件
                 String subPackagePath = fileName;
                 if (packagePath != null && packagePath != "") {
@@ -127,21 +195,112 @@ public class ClassUtil {
                 if (packageName != null && packageName != "") {
                     subPackageName = packageName + "." + subPackageName;
                 }
-                addClass(classSet, subPackagePath, subPackageName);
+                addClass(classNames, metadata, subPackagePath, subPackageName);
+            }
+        }
+    }
+
+    /**
+     * 解析class文件，读取后关闭输入流。无法解析时不放入metadata，该类交给类加载器处理
+     * @param in        class文件的输入流
+     * @param className 类名
+     * @param metadata  类名到类信息
+     */
+    private static void readMetadata(InputStream in, String className, Map<String, ClassMetadata> metadata) throws IOException {
+        try {
+            metadata.put(className, ClassMetadataReader.read(in));
+        } catch (IOException e) {
+            // 配置读取经由本类获取类加载器，不能在静态字段中持有Logger
+            Logger.getLogger(ClassUtil.class).warn("解析class文件失败，改为加载类判断: {}", className);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 保留组件类和无法解析的类，注解类型除外
+     */
+    private static List<String> selectComponents(List<String> classNames, Map<String, ClassMetadata> metadata) {
+        Map<String, Boolean> resolved = new HashMap<String, Boolean>();
+        List<String> components = new ArrayList<String>();
+        for (String className : classNames) {
+            ClassMetadata classMetadata = metadata.get(className);
+            if (classMetadata == null || (!classMetadata.isAnnotation() && isComponent(className, metadata, resolved))) {
+                components.add(className);
             }
         }
+        return components;
     }
 
     /**
-     * 加载并添加类对象
-     * @param classSet 类对象集合
-     * @param className  类名
+     * 类上有ComponentIndex.COMPONENT_ANNOTATIONS中的注解，或其在扫描范围内的父类、接口是组件类
+     * @param resolved 已判断过的类，父类和接口只判断一次
      */
-    private static void doAddClass(Set<Class<?>> classSet, String className) {
-        // 只是想获得类对象，不想要初始化
-        Class<?> cls = loadClass(className, false);
-        classSet.add(cls);
+    private static boolean isComponent(String className, Map<String, ClassMetadata> metadata, Map<String, Boolean> resolved) {
+        Boolean component = resolved.get(className);
+        if (component != null) {
+            return component;
+        }
+        ClassMetadata classMetadata = metadata.get(className);
+        // 扫描范围外的类型不再向上查找
+        if (classMetadata == null) {
+            return false;
+        }
+        // 先记为否，不合法的循环继承不会无限递归
+        resolved.put(className, Boolean.FALSE);
+        boolean result = false;
+        for (String annotationName : classMetadata.getAnnotationNames()) {
+            if (ComponentIndex.COMPONENT_ANNOTATIONS.contains(annotationName)) {
+                result = true;
+                break;
+            }
+        }
+        if (!result && classMetadata.getSuperClassName() != null) {
+            result = isComponent(classMetadata.getSuperClassName(), metadata, resolved);
+        }
+        for (int i = 0; !result && i < classMetadata.getInterfaceNames().size(); i++) {
+            result = isComponent(classMetadata.getInterfaceNames().get(i), metadata, resolved);
+        }
+        resolved.put(className, result);
+        return result;
     }
 
+    /**
+     * 加载一段类名，超过批大小时对半拆分
+     */
+    private static class LoadClassTask extends RecursiveTask<List<Class<?>>> {
+        private final List<String> classNames;
+        private final int from;
+        private final int to;
+        private final ClassLoader classLoader;
+
+        LoadClassTask(List<String> classNames, int from, int to, ClassLoader classLoader) {
+            this.classNames = classNames;
+            this.from = from;
+            this.to = to;
+            this.classLoader = classLoader;
+        }
 
+        @Override
+        protected List<Class<?>> compute() {
+            if (to - from <= LOAD_BATCH_SIZE) {
+                List<Class<?>> classes = new ArrayList<Class<?>>(to - from);
+                for (int i = from; i < to; i++) {
+                    // 只是想获得类对象，不想要初始化
+                    try {
+                        classes.add(Class.forName(classNames.get(i), false, classLoader));
+                    } catch (ClassNotFoundException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return classes;
+            }
+            int middle = (from + to) >>> 1;
+            LoadClassTask left = new LoadClassTask(classNames, from, middle, classLoader);
+            left.fork();
+            List<Class<?>> classes = new LoadClassTask(classNames, middle, to, classLoader).compute();
+            classes.addAll(left.join());
+            return classes;
+        }
+    }
 }
@@ -2,6 +2,8 @@ package com.wu.spring.utils;
 
 import com.wu.spring.constants.ConfigConstant;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 
@@ -17,6 +19,90 @@ public class ConfigUtil {
     private static final Properties CONFIG_PROPS = PropsUtil.loadProps(ConfigConstant.CONFIG_FILE);
 
     
+    /**
+     * 获取服务端口号，默认为8080
+     */
+    public static Integer getServerPort() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_PORT, 8080);
+    }
+
+    /**
+     * 获取请求执行方式，platform为Tomcat默认线程池，virtual为每个请求一个虚拟线程
+     */
+    public static String getServerExecutor() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.SERVER_EXECUTOR, "platform");
+    }
+
+    /**
+     * 获取虚拟线程名前缀
+     */
+    public static String getServerVirtualThreadPrefix() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.SERVER_VIRTUAL_THREAD_PREFIX, "myspring-vt-");
+    }
+
+    /**
+     * 获取连接器协议，nio或nio2，默认为nio
+     */
+    public static String getServerProtocol() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.SERVER_PROTOCOL, "nio");
+    }
+
+    /**
+     * 获取Tomcat主机名，默认为localhost
+     */
+    public static String getServerHostname() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.SERVER_HOSTNAME, "localhost");
+    }
+
+    /**
+     * 获取绑定的ip地址，为空时绑定所有地址
+     */
+    public static String getServerAddress() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.SERVER_ADDRESS, "");
+    }
+
+    /**
+     * 获取最大工作线程数
+     */
+    public static Integer getServerMaxThreads() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_MAX_THREADS, 200);
+    }
+
+    /**
+     * 获取最小空闲线程数
+     */
+    public static Integer getServerMinSpareThreads() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_MIN_SPARE_THREADS, 10);
+    }
+
+    /**
+     * 获取连接数已满时的等待队列长度
+     */
+    public static Integer getServerAcceptCount() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_ACCEPT_COUNT, 100);
+    }
+
+    /**
+     * 获取最大连接数
+     */
+    public static Integer getServerMaxConnections() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_MAX_CONNECTIONS, 10000);
+    }
+
+    /**
+     * 获取长连接超时毫秒数
+     */
+    public static Integer getServerKeepAliveTimeout() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_KEEP_ALIVE_TIMEOUT, 20000);
+    }
+
+    /**
+     * 获取一个长连接上的最大请求数
+     */
+    public static Integer getServerMaxKeepAliveRequests() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.SERVER_MAX_KEEP_ALIVE_REQUESTS, 100);
+    }
+
     /**
      * 获取 JDBC 驱动
      */
@@ -71,6 +157,27 @@ public class ConfigUtil {
         return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.APP_BASE_PACKAGE);
     }
 
+    /**
+     * 获取是否优先使用编译期生成的组件索引，默认为false。增量编译可能只生成部分索引，只应在完整构建的产物中开启
+     */
+    public static boolean getAppComponentIndex() {
+        return PropsUtil.getBoolean(CONFIG_PROPS, ConfigConstant.APP_COMPONENT_INDEX, false);
+    }
+
+    /**
+     * 获取扫描时是否先解析class文件，只加载被组件注解标注的类及其子类和实现类
+     */
+    public static boolean getAppScanMetadata() {
+        return PropsUtil.getBoolean(CONFIG_PROPS, ConfigConstant.APP_SCAN_METADATA, true);
+    }
+
+    /**
+     * 获取刷新容器时并行创建bean的线程数，0表示CPU核数
+     */
+    public static int getAppRefreshParallelism() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.APP_REFRESH_PARALLELISM, 0);
+    }
+
     /**
      * 获取应用 JSP 路径
      */
@@ -85,6 +192,168 @@ public class ConfigUtil {
         return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.APP_ASSET_PATH, "/asset/");
     }
 
+    /**
+     * 获取静态资源缓存的总字节数，默认为16MB
+     */
+    public static Integer getAppAssetCacheSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.APP_ASSET_CACHE_SIZE, 16 * 1024 * 1024);
+    }
+
+    /**
+     * 获取可缓存的单个静态资源最大字节数，默认为64KB
+     */
+    public static Integer getAppAssetCacheFileSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.APP_ASSET_CACHE_FILE_SIZE, 64 * 1024);
+    }
+
+    /**
+     * 获取静态资源Cache-Control的max-age秒数，默认为1小时
+     */
+    public static Integer getAppAssetMaxAge() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.APP_ASSET_MAX_AGE, 3600);
+    }
+
+    /**
+     * 获取控制器方法调用方式，默认为methodHandle
+     */
+    public static String getMvcInvoker() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.MVC_INVOKER, "methodHandle");
+    }
+
+    /**
+     * 获取请求体最大字节数，默认为2MB
+     */
+    public static Integer getMvcMaxBodySize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_MAX_BODY_SIZE, 2 * 1024 * 1024);
+    }
+
+    /**
+     * 获取响应缓冲区字节数，默认为8KB
+     */
+    public static Integer getMvcResponseBufferSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_RESPONSE_BUFFER_SIZE, 8 * 1024);
+    }
+
+    /**
+     * 获取异步请求超时毫秒数，默认为30秒
+     */
+    public static Integer getMvcAsyncTimeout() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_ASYNC_TIMEOUT, 30000);
+    }
+
+    /**
+     * 获取执行Callable返回值的线程数，默认为16，0表示CPU核数的2倍
+     */
+    public static Integer getMvcAsyncThreads() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_ASYNC_THREADS, 16);
+    }
+
+    /**
+     * 获取Callable排队的最大个数，默认为256
+     */
+    public static Integer getMvcAsyncQueueSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_ASYNC_QUEUE_SIZE, 256);
+    }
+
+    /**
+     * 获取大响应是否非阻塞写出，默认为false
+     */
+    public static boolean getMvcNonBlockingWrite() {
+        return PropsUtil.getBoolean(CONFIG_PROPS, ConfigConstant.MVC_NON_BLOCKING_WRITE, false);
+    }
+
+    /**
+     * 获取非阻塞写出时最多暂存的分块个数，每块最多为一个响应缓冲区，默认为32
+     */
+    public static int getMvcNonBlockingMaxChunks() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_NON_BLOCKING_MAX_CHUNKS, 32);
+    }
+
+    /**
+     * 获取是否开启响应压缩，默认为false
+     */
+    public static boolean getMvcCompression() {
+        return PropsUtil.getBoolean(CONFIG_PROPS, ConfigConstant.MVC_COMPRESSION, false);
+    }
+
+    /**
+     * 获取进行压缩的最小字节数，默认为1KB
+     */
+    public static Integer getMvcCompressionMinSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_COMPRESSION_MIN_SIZE, 1024);
+    }
+
+    /**
+     * 获取启动时是否预先解析全部模板，默认为true
+     */
+    public static boolean getMvcTemplateWarmUp() {
+        return PropsUtil.getBoolean(CONFIG_PROPS, ConfigConstant.MVC_TEMPLATE_WARM_UP, true);
+    }
+
+    /**
+     * 获取模板缓存的最大个数，默认为256
+     */
+    public static Integer getMvcTemplateCacheSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.MVC_TEMPLATE_CACHE_SIZE, 256);
+    }
+
+    /**
+     * 获取检查模板文件是否修改的间隔毫秒数，默认为5秒
+     */
+    public static Long getMvcTemplateUpdateDelay() {
+        return PropsUtil.getLong(CONFIG_PROPS, ConfigConstant.MVC_TEMPLATE_UPDATE_DELAY, 5000L);
+    }
+
+    /**
+     * 获取页面渲染方式，默认为buffered
+     */
+    public static String getMvcTemplateRenderMode() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.MVC_TEMPLATE_RENDER_MODE, "buffered");
+    }
+
+    /**
+     * 获取指标的访问路径，默认为空即不提供，指标中包含各路由的请求量和耗时，开启时应只对内网开放
+     */
+    public static String getMvcMetricsPath() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.MVC_METRICS_PATH, "").trim();
+    }
+
+    /**
+     * 获取日志的根级别
+     */
+    public static String getLogLevel() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.LOG_LEVEL, "INFO");
+    }
+
+    /**
+     * 获取按包名配置的日志级别
+     * @return 包名到级别的映射
+     */
+    public static Map<String, String> getLogPackageLevels() {
+        String prefix = ConfigConstant.LOG_LEVEL + ".";
+        Map<String, String> levels = new HashMap<>();
+        for (String name : CONFIG_PROPS.stringPropertyNames()) {
+            if (name.startsWith(prefix) && name.length() > prefix.length()) {
+                levels.put(name.substring(prefix.length()), CONFIG_PROPS.getProperty(name));
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * 获取日志文件路径，为空时写到标准输出
+     */
+    public static String getLogFile() {
+        return PropsUtil.getString(CONFIG_PROPS, ConfigConstant.LOG_FILE, "");
+    }
+
+    /**
+     * 获取日志环形缓冲区的容量
+     */
+    public static int getLogBufferSize() {
+        return PropsUtil.getInt(CONFIG_PROPS, ConfigConstant.LOG_BUFFER_SIZE, 8192);
+    }
+
     /**
      * 根据属性名获取 String 类型的属性值
      */
@@ -0,0 +1,170 @@
+package com.wu.spring.ioc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * BeanDependencyGraph的分组、分组顺序和并行执行。
+ * BeanDependencyGraph不对外公开，测试放在同一个包中
+ */
+public class BeanDependencyGraphTest {
+
+    private static Map<String, Set<String>> graph(String... edges) {
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        for (String edge : edges) {
+            String[] parts = edge.split("->");
+            Set<String> targets = dependencies.get(parts[0]);
+            if (targets == null) {
+                targets = new HashSet<>();
+                dependencies.put(parts[0], targets);
+            }
+            if (parts.length > 1) {
+                targets.add(parts[1]);
+            }
+        }
+        return dependencies;
+    }
+
+    private static Map<String, Integer> unitIndexes(BeanDependencyGraph graph) {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<List<String>> units = graph.getUnits();
+        for (int i = 0; i < units.size(); i++) {
+            for (String beanName : units.get(i)) {
+                assertNull(beanName + "出现在多个分组中", indexes.put(beanName, i));
+            }
+        }
+        return indexes;
+    }
+
+    @Test
+    public void cycleCollapsesIntoOneUnit() {
+        BeanDependencyGraph graph = new BeanDependencyGraph(graph("a->b", "b->c", "c->a", "d->a", "e"));
+        Map<String, Integer> indexes = unitIndexes(graph);
+        assertEquals(3, graph.getUnits().size());
+        assertEquals(indexes.get("a"), indexes.get("b"));
+        assertEquals(indexes.get("a"), indexes.get("c"));
+        assertNotEquals(indexes.get("a"), indexes.get("d"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(graph.getUnits().get(indexes.get("a"))));
+    }
+
+    @Test
+    public void selfDependencyStaysSingleUnit() {
+        BeanDependencyGraph graph = new BeanDependencyGraph(graph("a->a", "b->a"));
+        assertEquals(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b")), graph.getUnits());
+    }
+
+    @Test
+    public void unitsAreOrderedByDependency() {
+        Map<String, Set<String>> dependencies = graph("controller->service", "service->dao", "service->cache",
+                "dao->datasource", "cache", "datasource", "job->service", "job->dao", "x->y", "y->x", "x->dao");
+        BeanDependencyGraph graph = new BeanDependencyGraph(dependencies);
+        Map<String, Integer> indexes = unitIndexes(graph);
+        assertEquals(dependencies.keySet(), indexes.keySet());
+        for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                assertTrue(entry.getKey() + "->" + dependency,
+                        indexes.get(dependency) <= indexes.get(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void ignoresUnknownDependencies() {
+        BeanDependencyGraph graph = new BeanDependencyGraph(graph("a->missing", "b->a"));
+        assertEquals(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b")), graph.getUnits());
+    }
+
+    @Test
+    public void executeNeverStartsUnitBeforeItsDependencies() throws Exception {
+        // 分层的依赖：每层依赖上一层的若干个bean，另有一个跨层的循环
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        for (int layer = 0; layer < 6; layer++) {
+            for (int i = 0; i < 8; i++) {
+                Set<String> targets = new HashSet<>();
+                if (layer > 0) {
+                    targets.add("bean" + (layer - 1) + "_" + i);
+                    targets.add("bean" + (layer - 1) + "_" + ((i + 3) % 8));
+                }
+                dependencies.put("bean" + layer + "_" + i, targets);
+            }
+        }
+        dependencies.get("bean2_0").add("bean3_0");
+        dependencies.get("bean3_0").add("bean2_0");
+        final BeanDependencyGraph graph = new BeanDependencyGraph(dependencies);
+        final Map<String, Integer> indexes = unitIndexes(graph);
+
+        final AtomicInteger clock = new AtomicInteger();
+        final Map<String, Integer> started = new ConcurrentHashMap<>();
+        final Map<String, Integer> finished = new ConcurrentHashMap<>();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            graph.execute(pool, new BeanDependencyGraph.UnitAction() {
+                @Override
+                public void run(List<String> beanNames) {
+                    for (String beanName : beanNames) {
+                        started.put(beanName, clock.incrementAndGet());
+                    }
+                    Thread.yield();
+                    for (String beanName : beanNames) {
+                        finished.put(beanName, clock.incrementAndGet());
+                    }
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(dependencies.keySet(), started.keySet());
+        assertEquals(dependencies.keySet(), finished.keySet());
+        for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                if (indexes.get(dependency).equals(indexes.get(entry.getKey()))) {
+                    continue;
+                }
+                if (finished.get(dependency) > started.get(entry.getKey())) {
+                    errors.add(entry.getKey() + "在" + dependency + "完成前开始");
+                }
+            }
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+    @Test
+    public void executeRunsEveryUnitOnce() throws Exception {
+        BeanDependencyGraph graph = new BeanDependencyGraph(graph("a->b", "b->a", "c->a", "d->a", "e->c", "e->d"));
+        final Map<String, AtomicInteger> runs = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            graph.execute(pool, new BeanDependencyGraph.UnitAction() {
+                @Override
+                public void run(List<String> beanNames) {
+                    for (String beanName : beanNames) {
+                        runs.putIfAbsent(beanName, new AtomicInteger());
+                        runs.get(beanName).incrementAndGet();
+                    }
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(5, runs.size());
+        for (AtomicInteger count : runs.values()) {
+            assertEquals(1, count.get());
+        }
+    }
+}
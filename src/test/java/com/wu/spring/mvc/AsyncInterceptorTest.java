@@ -0,0 +1,116 @@
+package com.wu.spring.mvc;
+
+import com.wu.test.support.StubRequest;
+import com.wu.test.support.StubResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 异步handler经过拦截器：postHandle拿到异步结果，afterCompletion在结果写出后执行并拿到异步异常。
+ * InterceptorChain和AsyncStrategy不对外公开，测试放在同一个包中
+ */
+public class AsyncInterceptorTest {
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Exception> exceptions = Collections.synchronizedList(new ArrayList<Exception>());
+    private StubRequest stubRequest;
+    private StubResponse stubResponse;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private CompletableFuture<Object> future;
+
+    public CompletableFuture<Object> asyncHandler() {
+        return null;
+    }
+
+    private class RecordingInterceptor implements HandlerInterceptor {
+        private final String name;
+
+        RecordingInterceptor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Handler handler) {
+            events.add("pre " + name);
+            return true;
+        }
+
+        @Override
+        public void postHandle(HttpServletRequest request, HttpServletResponse response, Handler handler, Object result) {
+            events.add("post " + name + " " + result);
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Handler handler, Exception ex) {
+            events.add("after " + name);
+            exceptions.add(ex);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        stubRequest = new StubRequest();
+        stubResponse = new StubResponse();
+        request = stubRequest.proxy();
+        response = stubResponse.proxy();
+        future = new CompletableFuture<>();
+
+        // 与DispatcherServlet中的顺序一致：preHandle、调用handler、交给异步策略、容器线程返回
+        Handler handler = new Handler(this, AsyncInterceptorTest.class.getMethod("asyncHandler"));
+        InterceptorChain chain = new InterceptorChain(handler,
+                new HandlerInterceptor[]{new RecordingInterceptor("first"), new RecordingInterceptor("second")});
+        assertTrue(chain.applyPreHandle(request, response));
+        chain.bind(request);
+        new AsyncStrategy(new ResponseStrategy() {
+            @Override
+            public void handle(Object data, HttpServletRequest request, HttpServletResponse response) throws Exception {
+                events.add("write " + data);
+                response.getWriter().write(String.valueOf(data));
+            }
+        }).handle(future, request, response);
+        chain.complete(request, response, null);
+        assertEquals(Arrays.asList("pre first", "pre second"), events);
+    }
+
+    @Test
+    public void postHandleSeesResultAndAfterCompletionFollowsWrite() {
+        future.complete("ok");
+        assertEquals(Arrays.asList("pre first", "pre second", "post second ok", "post first ok", "write ok",
+                "after second", "after first"), events);
+        assertEquals(Arrays.asList(null, null), exceptions);
+        assertEquals("ok", stubResponse.bodyAsString());
+    }
+
+    @Test
+    public void afterCompletionReceivesAsyncFailure() {
+        IllegalStateException failure = new IllegalStateException("boom");
+        future.completeExceptionally(failure);
+        assertEquals(Arrays.asList("pre first", "pre second", "after second", "after first"), events);
+        assertSame(failure, exceptions.get(0));
+        assertSame(failure, exceptions.get(1));
+        assertEquals(500, stubResponse.status);
+    }
+
+    @Test
+    public void afterCompletionReceivesTimeout() throws Exception {
+        stubRequest.asyncContext.timeout();
+        assertEquals(Arrays.asList("pre first", "pre second", "after second", "after first"), events);
+        assertTrue(exceptions.get(0) instanceof TimeoutException);
+        assertEquals(503, stubResponse.status);
+
+        // 超时后结果才就绪，不再执行postHandle和写出
+        future.complete("late");
+        assertEquals(4, events.size());
+    }
+}
@@ -0,0 +1,158 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.annotation.mvc.ConcurrencyLimit;
+import com.wu.spring.constants.LimitAlgorithm;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ConcurrencyLimiter的固定、AIMD和Gradient三种上限调整方式。
+ * ConcurrencyLimiter不对外公开，测试放在同一个包中
+ */
+public class ConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @ConcurrencyLimit(limit = 3)
+    public void fixed() {
+    }
+
+    @ConcurrencyLimit(limit = 10, algorithm = LimitAlgorithm.AIMD, minLimit = 2, maxLimit = 12, latencyThresholdMillis = 100)
+    public void aimd() {
+    }
+
+    @ConcurrencyLimit(limit = 20, algorithm = LimitAlgorithm.GRADIENT, minLimit = 5, maxLimit = 100)
+    public void gradient() {
+    }
+
+    private static ConcurrencyLimiter limiter(String method) throws Exception {
+        return ConcurrencyLimiter.create(ConcurrencyLimiterTest.class.getMethod(method).getAnnotation(ConcurrencyLimit.class));
+    }
+
+    /**
+     * 占满当前上限后全部释放，每个请求提交相同的样本
+     */
+    private static void saturateAndRelease(ConcurrencyLimiter limiter, long rttNanos, boolean failed) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos, failed);
+        }
+    }
+
+    @Test
+    public void fixedLimitRejectsBeyondLimitUntilReleased() throws Exception {
+        ConcurrencyLimiter limiter = limiter("fixed");
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.getInFlight());
+
+        limiter.release(SLOW, true);
+        assertEquals(3, limiter.getLimit());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void aimdGrowsAdditivelyUnderLoad() throws Exception {
+        ConcurrencyLimiter limiter = limiter("aimd");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.release(FAST, false);
+        assertEquals(11, limiter.getLimit());
+    }
+
+    @Test
+    public void aimdDoesNotGrowWhenLightlyLoaded() throws Exception {
+        ConcurrencyLimiter limiter = limiter("aimd");
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void aimdBacksOffOnSlowOrFailedRequests() throws Exception {
+        ConcurrencyLimiter limiter = limiter("aimd");
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SLOW, false);
+        assertEquals(9, limiter.getLimit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, true);
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void aimdStaysWithinBounds() throws Exception {
+        ConcurrencyLimiter limiter = limiter("aimd");
+        for (int i = 0; i < 10; i++) {
+            saturateAndRelease(limiter, FAST, false);
+        }
+        assertEquals(12, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            saturateAndRelease(limiter, SLOW, false);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void gradientGrowsWhileLatencyIsStable() throws Exception {
+        ConcurrencyLimiter limiter = limiter("gradient");
+        for (int i = 0; i < 5; i++) {
+            saturateAndRelease(limiter, FAST, false);
+        }
+        assertTrue(String.valueOf(limiter.getLimit()), limiter.getLimit() > 20);
+        for (int i = 0; i < 200; i++) {
+            saturateAndRelease(limiter, FAST, false);
+        }
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    public void gradientDoesNotGrowWhenLightlyLoaded() throws Exception {
+        ConcurrencyLimiter limiter = limiter("gradient");
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void gradientShrinksWhenLatencyRises() throws Exception {
+        ConcurrencyLimiter limiter = limiter("gradient");
+        for (int i = 0; i < 5; i++) {
+            saturateAndRelease(limiter, FAST, false);
+        }
+        int before = limiter.getLimit();
+        // 近期耗时升到长期耗时的20倍，梯度降到下限0.5
+        for (int i = 0; i < 3; i++) {
+            saturateAndRelease(limiter, SLOW, false);
+        }
+        assertTrue(before + " -> " + limiter.getLimit(), limiter.getLimit() < before);
+        assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    public void gradientBacksOffOnFailures() throws Exception {
+        ConcurrencyLimiter limiter = limiter("gradient");
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, true);
+        assertEquals(18, limiter.getLimit());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, true);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+}
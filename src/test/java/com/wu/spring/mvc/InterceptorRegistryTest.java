@@ -0,0 +1,162 @@
+package com.wu.spring.mvc;
+
+import com.wu.test.support.StubRequest;
+import com.wu.test.support.StubResponse;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 拦截器路径模式与路由模板的匹配、排序，以及拦截器链的preHandle提前返回。
+ * InterceptorRegistration.matches和InterceptorChain不对外公开，测试放在同一个包中
+ */
+public class InterceptorRegistryTest {
+    private final List<String> events = new ArrayList<>();
+
+    private class RecordingInterceptor implements HandlerInterceptor {
+        private final String name;
+        private final boolean pass;
+
+        RecordingInterceptor(String name, boolean pass) {
+            this.name = name;
+            this.pass = pass;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Handler handler) {
+            events.add("pre " + name);
+            return pass;
+        }
+
+        @Override
+        public void postHandle(HttpServletRequest request, HttpServletResponse response, Handler handler, Object result) {
+            events.add("post " + name);
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Handler handler, Exception ex) {
+            events.add("after " + name);
+        }
+    }
+
+    private static InterceptorRegistration registration(String... includes) {
+        return new InterceptorRegistry().addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Handler handler) {
+                return true;
+            }
+        }).addPathPatterns(includes);
+    }
+
+    @Test
+    public void doubleStarMatchesZeroOrMoreSegments() {
+        InterceptorRegistration trailing = registration("/user/**");
+        assertTrue(trailing.matches("/user"));
+        assertTrue(trailing.matches("/user/login"));
+        assertTrue(trailing.matches("/user/findUser/{id}"));
+        assertFalse(trailing.matches("/users/login"));
+        assertFalse(trailing.matches("/"));
+
+        InterceptorRegistration middle = registration("/api/**/detail");
+        assertTrue(middle.matches("/api/detail"));
+        assertTrue(middle.matches("/api/order/detail"));
+        assertTrue(middle.matches("/api/order/{id}/detail"));
+        assertFalse(middle.matches("/api/order/detail/more"));
+
+        InterceptorRegistration leading = registration("/**/**/login");
+        assertTrue(leading.matches("/login"));
+        assertTrue(leading.matches("/user/admin/login"));
+
+        assertTrue(registration("/**").matches("/"));
+    }
+
+    @Test
+    public void variableAndStarMatchOneSegment() {
+        InterceptorRegistration star = registration("/user/*/orders");
+        assertTrue(star.matches("/user/{id}/orders"));
+        assertTrue(star.matches("/user/admin/orders"));
+        assertFalse(star.matches("/user/orders"));
+        assertFalse(star.matches("/user/a/b/orders"));
+
+        // 模式中的{name}与*相同，能匹配路由中的任意一段，包括名字不同的变量
+        InterceptorRegistration variable = registration("/user/{name}/orders");
+        assertTrue(variable.matches("/user/{id}/orders"));
+        assertTrue(variable.matches("/user/admin/orders"));
+        assertFalse(variable.matches("/user/orders"));
+    }
+
+    @Test
+    public void literalSegmentsMatchExactlyIgnoringExtraSlashes() {
+        InterceptorRegistration registration = registration("/user/login");
+        assertTrue(registration.matches("/user/login"));
+        assertTrue(registration.matches("//user//login/"));
+        assertFalse(registration.matches("/user/{id}"));
+        assertFalse(registration.matches("/user/login/more"));
+    }
+
+    @Test
+    public void excludeTakesPriorityOverInclude() {
+        InterceptorRegistration registration = registration("/user/**").excludePathPatterns("/user/logout", "/user/admin/**");
+        assertTrue(registration.matches("/user/login"));
+        assertFalse(registration.matches("/user/logout"));
+        assertFalse(registration.matches("/user/admin"));
+        assertFalse(registration.matches("/user/admin/{id}"));
+
+        // 没有include时拦截全部路由，exclude仍然生效
+        InterceptorRegistration all = registration().excludePathPatterns("/health");
+        assertTrue(all.matches("/user/login"));
+        assertFalse(all.matches("/health"));
+    }
+
+    @Test
+    public void interceptorsAreSortedByOrderThenRegistration() {
+        InterceptorRegistry registry = new InterceptorRegistry();
+        HandlerInterceptor late = new RecordingInterceptor("late", true);
+        HandlerInterceptor first = new RecordingInterceptor("first", true);
+        HandlerInterceptor second = new RecordingInterceptor("second", true);
+        HandlerInterceptor early = new RecordingInterceptor("early", true);
+        HandlerInterceptor other = new RecordingInterceptor("other", true);
+        registry.addInterceptor(late).order(10);
+        registry.addInterceptor(first);
+        registry.addInterceptor(second).addPathPatterns("/user/**");
+        registry.addInterceptor(early).order(-1);
+        registry.addInterceptor(other).addPathPatterns("/order/**");
+
+        assertArrayEquals(new HandlerInterceptor[]{early, first, second, late}, registry.getInterceptors("/user/{id}"));
+        assertArrayEquals(new HandlerInterceptor[]{early, first, other, late}, registry.getInterceptors("/order/list"));
+        assertSame(InterceptorRegistry.EMPTY, new InterceptorRegistry().getInterceptors("/user/{id}"));
+    }
+
+    @Test
+    public void rejectedPreHandleStopsChainAndCompletesPassedInterceptors() throws Exception {
+        HttpServletRequest request = new StubRequest().proxy();
+        HttpServletResponse response = new StubResponse().proxy();
+        InterceptorChain chain = new InterceptorChain(null, new HandlerInterceptor[]{
+                new RecordingInterceptor("auth", true), new RecordingInterceptor("limit", true),
+                new RecordingInterceptor("deny", false), new RecordingInterceptor("never", true)});
+
+        assertFalse(chain.applyPreHandle(request, response));
+        chain.complete(request, response, null);
+        // 返回false的拦截器和其后的拦截器都不执行afterCompletion
+        assertEquals(Arrays.asList("pre auth", "pre limit", "pre deny", "after limit", "after auth"), events);
+    }
+
+    @Test
+    public void passedChainRunsPostHandleAndAfterCompletionInReverse() throws Exception {
+        HttpServletRequest request = new StubRequest().proxy();
+        HttpServletResponse response = new StubResponse().proxy();
+        InterceptorChain chain = new InterceptorChain(null, new HandlerInterceptor[]{
+                new RecordingInterceptor("a", true), new RecordingInterceptor("b", true)});
+
+        assertTrue(chain.applyPreHandle(request, response));
+        chain.applyPostHandle(request, response, "result");
+        chain.complete(request, response, null);
+        assertEquals(Arrays.asList("pre a", "pre b", "post b", "post a", "after b", "after a"), events);
+    }
+}
@@ -0,0 +1,159 @@
+package com.wu.spring.mvc;
+
+import com.wu.spring.annotation.mvc.RateLimit;
+import com.wu.spring.constants.RateLimitKey;
+import com.wu.test.support.StubRequest;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * TokenBucket的GCRA突发和等待时间，以及RateLimiter的客户端维度和Retry-After。
+ * TokenBucket和RateLimiter不对外公开，测试放在同一个包中
+ */
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @RateLimit(permitsPerSecond = 1, burst = 2, key = RateLimitKey.PARAM, keyName = "user", maxKeys = 2)
+    public void perUser() {
+    }
+
+    @RateLimit(permitsPerSecond = 3)
+    public void defaultBurst() {
+    }
+
+    @RateLimit(permitsPerSecond = 0)
+    public void zeroRate() {
+    }
+
+    @RateLimit(permitsPerSecond = -1, burst = 5)
+    public void negativeRate() {
+    }
+
+    private static RateLimiter limiter(String method) throws Exception {
+        return new RateLimiter(TokenBucketTest.class.getMethod(method).getAnnotation(RateLimit.class));
+    }
+
+    private static long acquire(RateLimiter limiter, String user) {
+        StubRequest request = new StubRequest();
+        if (user != null) {
+            request.param("user", user);
+        }
+        return limiter.tryAcquire(request.proxy());
+    }
+
+    @Test
+    public void allowsExactlyBurstThenReportsWait() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+        long wait = bucket.tryAcquire();
+        // 下一个令牌在约1秒后补充
+        assertTrue(String.valueOf(wait), wait > SECOND / 2 && wait <= SECOND);
+        // 被拒绝的请求不消耗令牌，等待时间不会累加
+        assertTrue(bucket.tryAcquire() <= wait);
+    }
+
+    @Test
+    public void refillsAtConfiguredRate() throws Exception {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+        // 每50ms补充一个令牌
+        Thread.sleep(80);
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    public void reportsFullOnlyAfterRefill() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, 3);
+        assertTrue(bucket.isFull());
+        assertEquals(0, bucket.tryAcquire());
+        assertFalse(bucket.isFull());
+        Thread.sleep(50);
+        assertTrue(bucket.isFull());
+    }
+
+    @Test
+    public void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1, RateLimiter.retryAfterSeconds(1));
+        assertEquals(1, RateLimiter.retryAfterSeconds(SECOND));
+        assertEquals(2, RateLimiter.retryAfterSeconds(SECOND + 1));
+        // 每2秒一个令牌，刚用完时要等不到2秒
+        TokenBucket bucket = new TokenBucket(0.5, 1);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(2, RateLimiter.retryAfterSeconds(bucket.tryAcquire()));
+    }
+
+    @Test
+    public void burstDefaultsToPermitsPerSecond() throws Exception {
+        RateLimiter limiter = limiter("defaultBurst");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, acquire(limiter, null));
+        }
+        assertTrue(acquire(limiter, null) > 0);
+    }
+
+    @Test
+    public void clientsHaveIndependentBuckets() throws Exception {
+        RateLimiter limiter = limiter("perUser");
+        assertEquals(0, acquire(limiter, "a"));
+        assertEquals(0, acquire(limiter, "a"));
+        long wait = acquire(limiter, "a");
+        assertTrue(wait > 0);
+        assertEquals(1, RateLimiter.retryAfterSeconds(wait));
+
+        assertEquals(0, acquire(limiter, "b"));
+        assertEquals(0, acquire(limiter, "b"));
+    }
+
+    @Test
+    public void clientsBeyondMaxKeysShareOneBucket() throws Exception {
+        RateLimiter limiter = limiter("perUser");
+        acquire(limiter, "a");
+        acquire(limiter, "b");
+        // a和b的桶都未补满，c、d和没有key的请求共用一个桶
+        assertEquals(0, acquire(limiter, "c"));
+        assertEquals(0, acquire(limiter, "d"));
+        assertTrue(acquire(limiter, null) > 0);
+    }
+
+    @Test
+    public void rejectsNonPositiveRate() throws Exception {
+        for (String method : new String[]{"zeroRate", "negativeRate"}) {
+            try {
+                limiter(method);
+                fail(method);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("permitsPerSecond"));
+            }
+        }
+        try {
+            new TokenBucket(Double.NaN, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void largeBurstSaturatesInsteadOfOverflowing() {
+        // 间隔1000秒乘以容量会溢出long，溢出后容量为负数，所有请求都会被拒绝
+        TokenBucket bucket = new TokenBucket(0.001, Integer.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+    }
+
+    @Test
+    public void tinyRateWaitsInsteadOfOverflowing() {
+        TokenBucket bucket = new TokenBucket(1e-15, 1);
+        assertEquals(0, bucket.tryAcquire());
+        // 间隔按上限处理，等待时间为正数而不是溢出后的负数
+        assertTrue(bucket.tryAcquire() > 0);
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+}
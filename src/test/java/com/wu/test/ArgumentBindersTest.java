@@ -0,0 +1,107 @@
+package com.wu.test;
+
+import com.wu.spring.annotation.mvc.PathVariable;
+import com.wu.spring.annotation.mvc.RequestBody;
+import com.wu.spring.annotation.mvc.RequestParam;
+import com.wu.spring.mvc.ArgumentBinder;
+import com.wu.spring.mvc.ArgumentBinders;
+import com.wu.test.support.StubRequest;
+import com.wu.test.support.StubResponse;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * ArgumentBinders为各类参数生成的绑定器
+ */
+public class ArgumentBindersTest {
+
+    public static class Payload {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public void handler(HttpServletRequest request, HttpServletResponse response,
+                        @RequestParam(value = "name", defaultValue = "guest") String name,
+                        @RequestParam("age") int age,
+                        @PathVariable(value = "id", defaultValue = "0") Integer id,
+                        @RequestBody Payload payload,
+                        Object unknown) {
+    }
+
+    private static ArgumentBinder[] binders() throws Exception {
+        for (Method method : ArgumentBindersTest.class.getMethods()) {
+            if (method.getName().equals("handler")) {
+                return ArgumentBinders.forMethod(method);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static Object bind(int index, StubRequest request, Map<String, String> pathVariables) throws Exception {
+        return binders()[index].bind(request.proxy(), new StubResponse().proxy(), pathVariables);
+    }
+
+    @Test
+    public void bindsServletObjects() throws Exception {
+        ArgumentBinder[] binders = binders();
+        HttpServletRequest request = new StubRequest().proxy();
+        HttpServletResponse response = new StubResponse().proxy();
+        assertSame(request, binders[0].bind(request, response, null));
+        assertSame(response, binders[1].bind(request, response, null));
+    }
+
+    @Test
+    public void requestParamUsesDefaultWhenMissing() throws Exception {
+        assertEquals("guest", bind(2, new StubRequest(), null));
+        assertEquals("tom", bind(2, new StubRequest().param("name", "tom"), null));
+    }
+
+    @Test
+    public void requestParamJoinsMultipleValues() throws Exception {
+        assertEquals("a,b", bind(2, new StubRequest().param("name", "a", "b"), null));
+    }
+
+    @Test
+    public void requestParamConvertsToInteger() throws Exception {
+        assertEquals(18, bind(3, new StubRequest().param("age", "18"), null));
+    }
+
+    @Test
+    public void pathVariablePrefersRequestParameter() throws Exception {
+        Map<String, String> pathVariables = Collections.singletonMap("id", "7");
+        assertEquals(7, bind(4, new StubRequest(), pathVariables));
+        assertEquals(9, bind(4, new StubRequest().param("id", "9"), pathVariables));
+        assertEquals(0, bind(4, new StubRequest(), null));
+    }
+
+    @Test
+    public void requestBodyOnlyReadForPost() throws Exception {
+        StubRequest request = new StubRequest();
+        request.body = "{\"name\":\"tom\"}".getBytes(StandardCharsets.UTF_8);
+        assertNull(bind(5, request, null));
+        request.method = "POST";
+        Payload payload = (Payload) bind(5, request, null);
+        assertEquals("tom", payload.getName());
+    }
+
+    @Test
+    public void unannotatedParameterBindsNull() throws Exception {
+        assertNull(bind(6, new StubRequest().param("unknown", "x"), null));
+    }
+}
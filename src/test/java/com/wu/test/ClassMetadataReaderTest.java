@@ -0,0 +1,117 @@
+package com.wu.test;
+
+import com.wu.mybatis.annotation.Mapper;
+import com.wu.spring.annotation.ioc.Component;
+import com.wu.spring.annotation.ioc.Service;
+import com.wu.spring.annotation.mvc.Controller;
+import com.wu.spring.utils.ClassMetadata;
+import com.wu.spring.utils.ClassMetadataReader;
+import com.wu.spring.utils.ClassUtil;
+import com.wu.test.metadata.ScanFixtures;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * ClassMetadataReader解析编译后的class文件，以及按class文件扫描时的候选过滤
+ */
+public class ClassMetadataReaderTest {
+
+    private static ClassMetadata read(Class<?> cls) throws IOException {
+        try (InputStream in = cls.getResourceAsStream("/" + cls.getName().replace('.', '/') + ".class")) {
+            assertNotNull(cls.getName(), in);
+            return ClassMetadataReader.read(in);
+        }
+    }
+
+    @Test
+    public void readsPastLongAndDoubleConstants() throws Exception {
+        ClassMetadata metadata = read(ScanFixtures.WithConstants.class);
+        assertEquals(ScanFixtures.WithConstants.class.getName(), metadata.getClassName());
+        assertEquals(Collections.singleton(Service.class.getName()), metadata.getAnnotationNames());
+        assertFalse(metadata.isInterface());
+        assertFalse(metadata.isAbstract());
+    }
+
+    @Test
+    public void skipsNestedAndArrayAnnotationValues() throws Exception {
+        ClassMetadata metadata = read(ScanFixtures.NestedValues.class);
+        assertEquals(Arrays.asList(ScanFixtures.Meta.class.getName(), Controller.class.getName()),
+                Arrays.asList(metadata.getAnnotationNames().toArray()));
+    }
+
+    @Test
+    public void readsInterfaces() throws Exception {
+        ClassMetadata metadata = read(ScanFixtures.SomeMapper.class);
+        assertTrue(metadata.isInterface());
+        assertTrue(metadata.isAbstract());
+        assertFalse(metadata.isAnnotation());
+        assertEquals(Collections.singleton(Mapper.class.getName()), metadata.getAnnotationNames());
+    }
+
+    @Test
+    public void readsAnnotationTypes() throws Exception {
+        ClassMetadata metadata = read(ScanFixtures.Composed.class);
+        assertTrue(metadata.isAnnotation());
+        assertTrue(metadata.isInterface());
+        assertEquals(new HashSet<>(Arrays.asList(Component.class.getName(), Retention.class.getName())),
+                metadata.getAnnotationNames());
+    }
+
+    @Test
+    public void readsClassWithoutAnnotations() throws Exception {
+        ClassMetadata metadata = read(ScanFixtures.Plain.class);
+        assertEquals(ScanFixtures.Plain.class.getName(), metadata.getClassName());
+        assertTrue(metadata.getAnnotationNames().isEmpty());
+        assertEquals(Object.class.getName(), metadata.getSuperClassName());
+        assertTrue(metadata.getInterfaceNames().isEmpty());
+    }
+
+    @Test
+    public void readsSuperClassAndInterfaces() throws Exception {
+        ClassMetadata metadata = read(ScanFixtures.ShoutingGreeting.class);
+        assertEquals(ScanFixtures.OtherAnnotationOnly.class.getName(), metadata.getSuperClassName());
+        assertEquals(Collections.singletonList(ScanFixtures.LoudGreeting.class.getName()), metadata.getInterfaceNames());
+
+        ClassMetadata loud = read(ScanFixtures.LoudGreeting.class);
+        assertEquals(Object.class.getName(), loud.getSuperClassName());
+        assertEquals(Collections.singletonList(ScanFixtures.GreetingService.class.getName()), loud.getInterfaceNames());
+
+        ClassMetadata job = read(ScanFixtures.AbstractJob.class);
+        assertTrue(job.isAbstract());
+        assertEquals(Collections.singletonList(Runnable.class.getName()), job.getInterfaceNames());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNonClassFiles() throws Exception {
+        ClassMetadataReader.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void scanKeepsComponentClassesAndTheirSubtypes() {
+        List<String> names = ClassUtil.getAnnotatedClassNames(ScanFixtures.class.getPackage().getName());
+        Set<String> expected = new HashSet<>(Arrays.asList(
+                ScanFixtures.WithConstants.class.getName(),
+                ScanFixtures.NestedValues.class.getName(),
+                ScanFixtures.SomeMapper.class.getName(),
+                // 组件接口和抽象组件类的实现类，包括间接的
+                ScanFixtures.GreetingService.class.getName(),
+                ScanFixtures.DefaultGreeting.class.getName(),
+                ScanFixtures.LoudGreeting.class.getName(),
+                ScanFixtures.ShoutingGreeting.class.getName(),
+                ScanFixtures.AbstractJob.class.getName(),
+                ScanFixtures.NightlyJob.class.getName(),
+                ScanFixtures.HourlyJob.class.getName()));
+        assertEquals(expected, new HashSet<>(names));
+    }
+}
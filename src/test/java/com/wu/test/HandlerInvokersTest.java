@@ -0,0 +1,74 @@
+package com.wu.test;
+
+import com.wu.spring.mvc.Handler;
+import com.wu.spring.mvc.HandlerInvoker;
+import com.wu.spring.mvc.HandlerInvokers;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+/**
+ * MethodHandle调用器对参数错误和控制器异常的区分
+ */
+public class HandlerInvokersTest {
+
+    public static class Controller {
+        public String echo(String value, int times) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < times; i++) {
+                builder.append(value);
+            }
+            return builder.toString();
+        }
+
+        public Object fail(Object value) {
+            // 控制器内部的类型转换错误
+            return (Integer) value;
+        }
+
+        public void crash() {
+            throw new StackOverflowError();
+        }
+    }
+
+    private static HandlerInvoker invoker(String name, Class<?>... parameterTypes) throws Exception {
+        return HandlerInvokers.methodHandle(new Handler(new Controller(), Controller.class.getMethod(name, parameterTypes)));
+    }
+
+    @Test
+    public void invokesWithMatchingArguments() throws Exception {
+        assertEquals("abab", invoker("echo", String.class, int.class).invoke(new Object[]{"ab", 2}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongArgumentTypeIsIllegalArgument() throws Exception {
+        invoker("echo", String.class, int.class).invoke(new Object[]{"ab", "2"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPrimitiveIsIllegalArgument() throws Exception {
+        invoker("echo", String.class, int.class).invoke(new Object[]{"ab", null});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongArgumentCountIsIllegalArgument() throws Exception {
+        invoker("echo", String.class, int.class).invoke(new Object[]{"ab"});
+    }
+
+    @Test
+    public void controllerExceptionIsWrapped() throws Exception {
+        try {
+            invoker("fail", Object.class).invoke(new Object[]{"not a number"});
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+
+    @Test(expected = StackOverflowError.class)
+    public void errorPropagates() throws Exception {
+        invoker("crash").invoke(new Object[0]);
+    }
+}
@@ -0,0 +1,93 @@
+package com.wu.test;
+
+import com.wu.spring.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * LatencyHistogram的分桶精度和分位数
+ */
+public class LatencyHistogramTest {
+
+    private static long quantile(LatencyHistogram histogram, double quantile) {
+        return histogram.getValuesAtQuantiles(new double[]{quantile})[0];
+    }
+
+    @Test
+    public void emptyHistogramReturnsZeros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertArrayEquals(new long[]{0, 0}, histogram.getValuesAtQuantiles(new double[]{0.5, 0.99}));
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 32; i++) {
+            histogram.record(i);
+        }
+        assertEquals(15, quantile(histogram, 0.5));
+        assertEquals(31, quantile(histogram, 1.0));
+        assertEquals(0, quantile(histogram, 0.0));
+    }
+
+    @Test
+    public void largeValuesStayWithinBucketPrecision() {
+        long[] values = {32, 33, 63, 64, 65, 100, 1000, 12345, 1000000, 123456789L, 1L << 35};
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            // 再记录一个更大的值，避免结果被最大值截断
+            histogram.record(value * 4);
+            long reported = quantile(histogram, 0.5);
+            assertTrue(value + " -> " + reported, reported >= value);
+            assertTrue(value + " -> " + reported, reported <= value + value / 32);
+        }
+    }
+
+    @Test
+    public void quantilesFollowDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        long[] values = histogram.getValuesAtQuantiles(new double[]{0.5, 0.9, 0.99, 1.0});
+        assertEquals(5000, values[0], 5000 / 32.0);
+        assertEquals(9000, values[1], 9000 / 32.0);
+        assertEquals(9900, values[2], 9900 / 32.0);
+        assertEquals(10000, values[3]);
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000L * 10001 / 2, histogram.getSum());
+    }
+
+    @Test
+    public void quantileIsCappedByMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        // 1000所在桶的上界大于1000
+        assertEquals(1000, quantile(histogram, 0.99));
+        assertEquals(1000, histogram.getMax());
+    }
+
+    @Test
+    public void clampsNegativeAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.recordNanos(-1);
+        assertEquals(0, quantile(histogram, 1.0));
+
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMax());
+        assertEquals(3, histogram.getCount());
+    }
+
+    @Test
+    public void recordNanosConvertsToMicros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(25999);
+        assertEquals(25, histogram.getMax());
+        assertEquals(25, histogram.getSum());
+    }
+}
@@ -0,0 +1,147 @@
+package com.wu.test;
+
+import com.wu.spring.annotation.mvc.Cacheable;
+import com.wu.spring.mvc.CachingResponseWrapper;
+import com.wu.spring.mvc.ResponseCache;
+import com.wu.test.support.StubResponse;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * ResponseCache只缓存成功的响应，超出个数时淘汰最久未命中的响应
+ */
+public class ResponseCacheTest {
+
+    @Cacheable(maxSize = 10)
+    public void small() {
+    }
+
+    @Cacheable(maxSize = 500)
+    public void large() {
+    }
+
+    @Cacheable(ttl = 0)
+    public void expired() {
+    }
+
+    private static ResponseCache cache(String method) throws Exception {
+        return new ResponseCache(ResponseCacheTest.class.getMethod(method).getAnnotation(Cacheable.class));
+    }
+
+    private static void store(ResponseCache cache, String key, String body) throws Exception {
+        CachingResponseWrapper wrapper = new CachingResponseWrapper(new StubResponse().proxy());
+        wrapper.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        cache.store(key, wrapper);
+    }
+
+    private static String cached(ResponseCache cache, String key) throws Exception {
+        StubResponse response = new StubResponse();
+        return cache.writeCached(key, response.proxy()) ? response.bodyAsString() : null;
+    }
+
+    @Test
+    public void servesStoredResponse() throws Exception {
+        ResponseCache cache = cache("small");
+        store(cache, "a", "body-a");
+        assertEquals("body-a", cached(cache, "a"));
+        assertNull(cached(cache, "b"));
+    }
+
+    @Test
+    public void skipsErrorResponses() throws Exception {
+        ResponseCache cache = cache("small");
+
+        CachingResponseWrapper notFound = new CachingResponseWrapper(new StubResponse().proxy());
+        notFound.setStatus(404);
+        notFound.getOutputStream().write(1);
+        cache.store("a", notFound);
+
+        CachingResponseWrapper error = new CachingResponseWrapper(new StubResponse().proxy());
+        error.sendError(500);
+        cache.store("b", error);
+
+        assertEquals(0, cache.size());
+        assertNull(cached(cache, "a"));
+    }
+
+    @Test
+    public void dropsExpiredResponses() throws Exception {
+        ResponseCache cache = cache("expired");
+        store(cache, "a", "body-a");
+        Thread.sleep(1);
+        assertNull(cached(cache, "a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBeyondMaxSize() throws Exception {
+        ResponseCache cache = cache("small");
+        for (int i = 0; i < 10; i++) {
+            store(cache, "k" + i, "v" + i);
+            Thread.sleep(1);
+        }
+        // k0最近被命中，k1是最久未使用的
+        assertEquals("v0", cached(cache, "k0"));
+        store(cache, "k10", "v10");
+
+        assertTrue(cache.size() <= 10);
+        assertNull(cached(cache, "k1"));
+        assertEquals("v0", cached(cache, "k0"));
+        assertEquals("v10", cached(cache, "k10"));
+    }
+
+    @Test
+    public void evictsWhileOtherThreadsHitCache() throws Exception {
+        final ResponseCache cache = cache("large");
+        for (int i = 0; i < 500; i++) {
+            store(cache, "k" + i, "v" + i);
+        }
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch started = new CountDownLatch(4);
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    int i = offset;
+                    try {
+                        // 不断命中，使淘汰排序期间访问时间持续变化
+                        while (running.get()) {
+                            cached(cache, "k" + (i % 2000));
+                            i += 7;
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        started.await();
+        try {
+            for (int i = 500; i < 2000; i++) {
+                store(cache, "k" + i, "v" + i);
+            }
+        } finally {
+            running.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(String.valueOf(cache.size()), cache.size() <= 500);
+        assertEquals("v1999", cached(cache, "k1999"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.wu.test;
+
+import com.alibaba.fastjson.JSON;
+import com.wu.spring.mvc.ResultResolverHandler;
+import com.wu.spring.utils.ConfigUtil;
+import com.wu.test.support.StubResponse;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * JSON结果直接按UTF-8编码进复用缓冲区：能放进一个缓冲区时设置Content-Length，溢出后不设置
+ */
+public class ResultResolverHandlerTest {
+
+    @Test
+    public void setsContentLengthWhenJsonFitsInBuffer() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", "张三");
+        data.put("emoji", "😀");
+        data.put("age", 18);
+        StubResponse stub = new StubResponse();
+
+        ResultResolverHandler.handleJsonResult(data, stub.proxy());
+
+        byte[] expected = JSON.toJSONString(data).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, stub.body.toByteArray());
+        assertEquals(expected.length, stub.contentLength);
+        assertEquals("application/json;charset=UTF-8", stub.contentType);
+    }
+
+    @Test
+    public void omitsContentLengthWhenJsonOverflowsBuffer() throws Exception {
+        // 多字节字符和代理对会落在fastjson字符缓冲区和响应缓冲区的边界上
+        List<String> data = new ArrayList<>();
+        int bytes = 0;
+        for (int i = 0; bytes < ConfigUtil.getMvcResponseBufferSize() * 3; i++) {
+            String item = i + "中文😀\"é";
+            data.add(item);
+            bytes += item.length() * 3;
+        }
+        StubResponse stub = new StubResponse();
+
+        ResultResolverHandler.handleJsonResult(data, stub.proxy());
+
+        byte[] expected = JSON.toJSONString(data).getBytes(StandardCharsets.UTF_8);
+        assertTrue(expected.length > ConfigUtil.getMvcResponseBufferSize());
+        assertArrayEquals(expected, stub.body.toByteArray());
+        assertEquals(-1, stub.contentLength);
+    }
+
+    @Test
+    public void exactlyFullBufferStillSetsContentLength() throws Exception {
+        // 字符串两侧各有一个引号，内容正好占满缓冲区
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < ConfigUtil.getMvcResponseBufferSize() - 2; i++) {
+            value.append('a');
+        }
+        StubResponse stub = new StubResponse();
+
+        ResultResolverHandler.handleJsonResult(value.toString(), stub.proxy());
+
+        assertEquals(ConfigUtil.getMvcResponseBufferSize().intValue(), stub.body.size());
+        assertEquals(stub.body.size(), stub.contentLength);
+    }
+}
@@ -0,0 +1,77 @@
+package com.wu.test;
+
+import com.wu.spring.constants.RequestMethod;
+import com.wu.spring.mvc.Handler;
+import com.wu.spring.mvc.RouteMatch;
+import com.wu.spring.mvc.RouteTrie;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+/**
+ * RouteTrie的匹配顺序与路径变量
+ */
+public class RouteTrieTest {
+    private RouteTrie routeTrie;
+    private Handler list;
+    private Handler item;
+    private Handler itemEdit;
+    private Handler userStatic;
+
+    @Before
+    public void setUp() throws Exception {
+        Method method = Object.class.getMethod("toString");
+        list = new Handler(new Object(), method);
+        item = new Handler(new Object(), method);
+        itemEdit = new Handler(new Object(), method);
+        userStatic = new Handler(new Object(), method);
+        routeTrie = new RouteTrie();
+        routeTrie.register(RequestMethod.GET, "/user/list", list);
+        routeTrie.register(RequestMethod.GET, "/user/{id}", item);
+        routeTrie.register(RequestMethod.GET, "/user/{id}/{action}", itemEdit);
+        routeTrie.register(RequestMethod.GET, "/user/list/all", userStatic);
+    }
+
+    @Test
+    public void staticSegmentWinsOverVariable() {
+        RouteMatch match = routeTrie.match(RequestMethod.GET, "/user/list");
+        assertSame(list, match.getHandler());
+        assertTrue(match.getPathVariables().isEmpty());
+    }
+
+    @Test
+    public void variableCapturesSegment() {
+        RouteMatch match = routeTrie.match(RequestMethod.GET, "/user/42");
+        assertSame(item, match.getHandler());
+        assertEquals("42", match.getPathVariables().get("id"));
+    }
+
+    @Test
+    public void backtracksToVariableWhenStaticBranchDeadEnds() {
+        // list分支下没有/edit，需要回退到{id}分支
+        RouteMatch match = routeTrie.match(RequestMethod.GET, "/user/list/edit");
+        assertSame(itemEdit, match.getHandler());
+        assertEquals("list", match.getPathVariables().get("id"));
+        assertEquals("edit", match.getPathVariables().get("action"));
+    }
+
+    @Test
+    public void deeperStaticRouteStillPreferred() {
+        assertSame(userStatic, routeTrie.match(RequestMethod.GET, "/user/list/all").getHandler());
+    }
+
+    @Test
+    public void redundantSlashesIgnored() {
+        assertSame(list, routeTrie.match(RequestMethod.GET, "//user///list/").getHandler());
+    }
+
+    @Test
+    public void unknownPathOrMethodReturnsNull() {
+        assertNull(routeTrie.match(RequestMethod.GET, "/user/1/2/3"));
+        assertNull(routeTrie.match(RequestMethod.GET, "/order"));
+        assertNull(routeTrie.match(RequestMethod.POST, "/user/list"));
+    }
+}
@@ -0,0 +1,200 @@
+package com.wu.test;
+
+import com.wu.spring.mvc.StaticResourceHandler;
+import com.wu.test.support.StubRequest;
+import com.wu.test.support.StubResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * StaticResourceHandler的Range/If-Range/ETag处理和路径解码
+ */
+public class StaticResourceHandlerTest {
+    // 整秒的修改时间，便于在同一秒内再次修改
+    private static final long MODIFIED = 1600000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private StaticResourceHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile("a.txt");
+        write(file, "0123456789", MODIFIED);
+        handler = new StaticResourceHandler("/asset/", folder.getRoot());
+    }
+
+    private static void write(File target, String content, long modified) throws Exception {
+        Files.write(target.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(target.toPath(), FileTime.fromMillis(modified));
+    }
+
+    private StubResponse get(String path, String... headers) throws Exception {
+        StubRequest request = new StubRequest();
+        request.requestURI = path;
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        StubResponse response = new StubResponse();
+        handler.handle(path, request.proxy(), response.proxy());
+        return response;
+    }
+
+    private static String httpDate(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(millis));
+    }
+
+    @Test
+    public void servesWholeFileWithValidators() throws Exception {
+        StubResponse response = get("/asset/a.txt");
+        assertEquals(200, response.status);
+        assertEquals("0123456789", response.bodyAsString());
+        assertEquals(10, response.contentLength);
+        assertEquals("bytes", response.headers.get("Accept-Ranges"));
+        assertNotNull(response.headers.get("ETag"));
+    }
+
+    @Test
+    public void servesSingleRanges() throws Exception {
+        StubResponse response = get("/asset/a.txt", "Range", "bytes=2-4");
+        assertEquals(206, response.status);
+        assertEquals("234", response.bodyAsString());
+        assertEquals("bytes 2-4/10", response.headers.get("Content-Range"));
+
+        response = get("/asset/a.txt", "Range", "bytes=-3");
+        assertEquals(206, response.status);
+        assertEquals("789", response.bodyAsString());
+
+        response = get("/asset/a.txt", "Range", "bytes=7-100");
+        assertEquals("bytes 7-9/10", response.headers.get("Content-Range"));
+        assertEquals("789", response.bodyAsString());
+    }
+
+    @Test
+    public void rejectsUnsatisfiableRange() throws Exception {
+        StubResponse response = get("/asset/a.txt", "Range", "bytes=20-");
+        assertEquals(416, response.status);
+        assertEquals("bytes */10", response.headers.get("Content-Range"));
+        assertEquals("", response.bodyAsString());
+    }
+
+    @Test
+    public void ignoresMultipleAndMalformedRanges() throws Exception {
+        StubResponse response = get("/asset/a.txt", "Range", "bytes=0-1,3-4");
+        assertEquals(200, response.status);
+        assertEquals("0123456789", response.bodyAsString());
+
+        response = get("/asset/a.txt", "Range", "bytes=x-y");
+        assertEquals(200, response.status);
+        assertEquals("0123456789", response.bodyAsString());
+    }
+
+    @Test
+    public void ifRangeAppliesRangeOnlyWhenValidatorMatches() throws Exception {
+        String etag = get("/asset/a.txt").headers.get("ETag");
+
+        StubResponse response = get("/asset/a.txt", "Range", "bytes=0-1", "If-Range", etag);
+        assertEquals(206, response.status);
+        assertEquals("01", response.bodyAsString());
+
+        response = get("/asset/a.txt", "Range", "bytes=0-1", "If-Range", "W/\"10-0\"");
+        assertEquals(200, response.status);
+        assertEquals("0123456789", response.bodyAsString());
+
+        response = get("/asset/a.txt", "Range", "bytes=0-1", "If-Range", httpDate(MODIFIED));
+        assertEquals(206, response.status);
+
+        response = get("/asset/a.txt", "Range", "bytes=0-1", "If-Range", httpDate(MODIFIED - 1000));
+        assertEquals(200, response.status);
+    }
+
+    @Test
+    public void answersConditionalRequestsWithNotModified() throws Exception {
+        String etag = get("/asset/a.txt").headers.get("ETag");
+
+        StubResponse response = get("/asset/a.txt", "If-None-Match", "\"other\", " + etag);
+        assertEquals(304, response.status);
+        assertEquals("", response.bodyAsString());
+
+        // 弱比较忽略W/前缀
+        response = get("/asset/a.txt", "If-None-Match", etag.substring(2));
+        assertEquals(304, response.status);
+
+        response = get("/asset/a.txt", "If-Modified-Since", httpDate(MODIFIED));
+        assertEquals(304, response.status);
+
+        // If-None-Match优先于If-Modified-Since
+        response = get("/asset/a.txt", "If-None-Match", "\"other\"", "If-Modified-Since", httpDate(MODIFIED));
+        assertEquals(200, response.status);
+    }
+
+    @Test
+    public void changeWithinSameSecondInvalidatesEtagAndCache() throws Exception {
+        StubResponse first = get("/asset/a.txt");
+        assertEquals("0123456789", first.bodyAsString());
+
+        // 长度和秒级修改时间都不变
+        write(file, "abcdefghij", MODIFIED + 500);
+        StubResponse second = get("/asset/a.txt");
+        assertEquals("abcdefghij", second.bodyAsString());
+        assertNotEquals(first.headers.get("ETag"), second.headers.get("ETag"));
+        assertEquals(first.headers.get("Last-Modified"), second.headers.get("Last-Modified"));
+
+        StubResponse response = get("/asset/a.txt", "If-None-Match", first.headers.get("ETag"));
+        assertEquals(200, response.status);
+    }
+
+    @Test
+    public void decodesPathBeforeResolvingFile() throws Exception {
+        write(folder.newFile("a b+c.txt"), "spaced", MODIFIED);
+
+        StubResponse response = get("/asset/a%20b+c.txt");
+        assertEquals(200, response.status);
+        assertEquals("spaced", response.bodyAsString());
+
+        response = get("/asset/a%20b%2Bc.txt");
+        assertEquals("spaced", response.bodyAsString());
+    }
+
+    @Test
+    public void rejectsEncodedTraversalAndMalformedPaths() throws Exception {
+        File outside = new File(folder.getRoot().getParentFile(), folder.getRoot().getName() + "-outside.txt");
+        write(outside, "secret", MODIFIED);
+        try {
+            String name = outside.getName();
+            assertEquals(404, get("/asset/%2e%2e/" + name).status);
+            assertEquals(404, get("/asset/..%2F" + name).status);
+            assertEquals(400, get("/asset/%zz.txt").status);
+            assertEquals(400, get("/asset/a.txt%00").status);
+        } finally {
+            assertTrue(outside.delete());
+        }
+    }
+
+    @Test
+    public void rejectsUnsupportedMethods() throws Exception {
+        StubRequest request = new StubRequest();
+        request.method = "POST";
+        StubResponse response = new StubResponse();
+        handler.handle("/asset/a.txt", request.proxy(), response.proxy());
+        assertEquals(405, response.status);
+        assertEquals("GET, HEAD", response.headers.get("Allow"));
+    }
+}
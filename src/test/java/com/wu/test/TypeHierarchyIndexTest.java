@@ -0,0 +1,92 @@
+package com.wu.test;
+
+import com.wu.spring.annotation.ioc.Component;
+import com.wu.spring.annotation.ioc.Service;
+import com.wu.spring.ioc.TypeHierarchyIndex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * TypeHierarchyIndex按类型、注解value和简单类名查找实现类
+ */
+public class TypeHierarchyIndexTest {
+
+    public interface Repository {
+    }
+
+    public interface UserRepository extends Repository {
+    }
+
+    public static abstract class AbstractUserRepository implements UserRepository {
+    }
+
+    @Service
+    public static class JdbcUserRepository extends AbstractUserRepository {
+    }
+
+    @Component("memory")
+    public static class MemoryUserRepository extends AbstractUserRepository {
+    }
+
+    public interface Unimplemented {
+    }
+
+    private static TypeHierarchyIndex index() {
+        return new TypeHierarchyIndex(new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+                Repository.class, UserRepository.class, AbstractUserRepository.class,
+                JdbcUserRepository.class, MemoryUserRepository.class, Unimplemented.class)));
+    }
+
+    @Test
+    public void subTypesListConcreteClassesFirst() {
+        TypeHierarchyIndex index = index();
+        List<Class<?>> subTypes = index.getSubTypes(Repository.class);
+        assertEquals(4, subTypes.size());
+        assertFalse(subTypes.contains(Repository.class));
+        assertEquals(new HashSet<Class<?>>(Arrays.<Class<?>>asList(JdbcUserRepository.class, MemoryUserRepository.class)),
+                new HashSet<>(subTypes.subList(0, 2)));
+        assertEquals(new HashSet<Class<?>>(Arrays.<Class<?>>asList(UserRepository.class, AbstractUserRepository.class)),
+                new HashSet<>(subTypes.subList(2, 4)));
+        assertTrue(index.getSubTypes(JdbcUserRepository.class).isEmpty());
+    }
+
+    @Test
+    public void findsImplementationByType() {
+        Class<?> cls = index().findImplementClass(UserRepository.class, null);
+        assertTrue(cls == JdbcUserRepository.class || cls == MemoryUserRepository.class);
+        assertTrue(index().findImplementClass(AbstractUserRepository.class, "") != AbstractUserRepository.class);
+    }
+
+    @Test
+    public void qualifierSelectsNamedImplementation() {
+        TypeHierarchyIndex index = index();
+        assertSame(MemoryUserRepository.class, index.findImplementClass(UserRepository.class, "memory"));
+        assertSame(MemoryUserRepository.class, index.findImplementClass(Repository.class, "memory"));
+        // 名字不匹配时退回按类型查找
+        assertNotNull(index.findImplementClass(UserRepository.class, "missing"));
+    }
+
+    @Test
+    public void findsByNameWithoutType() {
+        TypeHierarchyIndex index = index();
+        assertSame(MemoryUserRepository.class, index.findImplementClass(null, "memory"));
+        assertSame(JdbcUserRepository.class, index.findImplementClass(null, "JdbcUserRepository"));
+        // 简单类名只记录非接口类
+        assertNull(index.findImplementClass(null, "UserRepository"));
+        assertNull(index.findImplementClass(null, "missing"));
+        assertNull(index.findImplementClass(null, null));
+    }
+
+    @Test
+    public void typeWithoutSubTypesResolvesToItself() {
+        TypeHierarchyIndex index = index();
+        assertSame(Unimplemented.class, index.findImplementClass(Unimplemented.class, null));
+        assertSame(JdbcUserRepository.class, index.findImplementClass(JdbcUserRepository.class, "memory"));
+        assertSame(Runnable.class, index.findImplementClass(Runnable.class, null));
+    }
+}
@@ -0,0 +1,65 @@
+package com.wu.test.benchmark;
+
+import com.wu.spring.mvc.Handler;
+import com.wu.spring.mvc.HandlerInvoker;
+import com.wu.spring.mvc.HandlerInvokers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比Method.invoke与MethodHandle调用控制器方法的开销
+ * 运行方式：执行main方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HandlerInvokeBenchmark {
+
+    /**
+     * 模拟控制器，参数形式与TestController中的方法类似
+     */
+    public static class FakeController {
+        public String findUser(Integer id, String username) {
+            return username;
+        }
+    }
+
+    private HandlerInvoker reflection;
+    private HandlerInvoker methodHandle;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws Exception {
+        Method method = FakeController.class.getMethod("findUser", Integer.class, String.class);
+        Handler handler = new Handler(new FakeController(), method);
+        reflection = HandlerInvokers.reflection(handler);
+        methodHandle = HandlerInvokers.methodHandle(handler);
+        args = new Object[]{42, "cactus"};
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return reflection.invoke(args);
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Exception {
+        return methodHandle.invoke(args);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HandlerInvokeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
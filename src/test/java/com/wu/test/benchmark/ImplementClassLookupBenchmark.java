@@ -0,0 +1,239 @@
+package com.wu.test.benchmark;
+
+import com.wu.spring.annotation.ioc.Autowired;
+import com.wu.spring.annotation.ioc.Qualifier;
+import com.wu.spring.annotation.ioc.Service;
+import com.wu.spring.ioc.DefaultBeanFactory;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在5000个类的合成包上测量容器启动中与查找实现类相关的完整路径：
+ * 扫描base_package、ClassSetHelper加载类并建立TypeHierarchyIndex、DefaultBeanFactory.refresh创建bean并注入。
+ * 合成包用ASM生成：100个接口，2400个带@Service的实现类，每个实现类按接口注入另一个实现类，其中一半带@Qualifier，
+ * 2500个没有注解的实体类。
+ * 框架的状态都在静态字段中，每次启动都用新的类加载器重新加载框架类，因此采用单次执行模式。
+ * 运行方式：执行main方法
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImplementClassLookupBenchmark {
+    private static final String PACKAGE = "com/wu/test/synthetic/";
+    private static final int INTERFACE_COUNT = 100;
+    private static final int SERVICE_COUNT = 2400;
+    private static final int MODEL_COUNT = 2500;
+
+    // 是否先解析class文件只加载组件类，false时加载包下全部类
+    @Param({"true", "false"})
+    public boolean scanMetadata;
+
+    private File root;
+    private URL[] urls;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("myspring-benchmark").toFile();
+        File classes = new File(root, "classes");
+        for (int i = 0; i < INTERFACE_COUNT; i++) {
+            String name = PACKAGE + "IService" + i;
+            write(classes, name, generateInterface(name));
+        }
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            String name = PACKAGE + "ServiceImpl" + i;
+            String implemented = PACKAGE + "IService" + (i % INTERFACE_COUNT);
+            // 注入下一个接口的实现类，奇数个按@Qualifier找指定的实现类
+            int target = (i + 1) % SERVICE_COUNT;
+            String dependency = PACKAGE + "IService" + (target % INTERFACE_COUNT);
+            String qualifier = (i & 1) == 1 ? "service" + target : null;
+            write(classes, name, generateService(name, implemented, "service" + i, dependency, qualifier));
+        }
+        for (int i = 0; i < MODEL_COUNT; i++) {
+            String name = PACKAGE + "Model" + i;
+            write(classes, name, generateModel(name));
+        }
+
+        File config = new File(root, "config");
+        Properties props = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("application.properties")) {
+            props.load(in);
+        }
+        props.setProperty("myspring.app.base_package", PACKAGE.substring(0, PACKAGE.length() - 1).replace('/', '.'));
+        props.setProperty("myspring.app.component_index", "false");
+        props.setProperty("myspring.app.scan_metadata", String.valueOf(scanMetadata));
+        props.setProperty("myspring.log.level", "WARN");
+        config.mkdirs();
+        try (OutputStream out = new FileOutputStream(new File(config, "application.properties"))) {
+            props.store(out, null);
+        }
+        URL framework = DefaultBeanFactory.class.getProtectionDomain().getCodeSource().getLocation();
+        urls = new URL[]{config.toURI().toURL(), classes.toURI().toURL(), framework};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Benchmark
+    public Object startup() throws Exception {
+        IsolatedClassLoader loader = new IsolatedClassLoader(urls, getClass().getClassLoader());
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        // 框架通过上下文类加载器读取配置和扫描包
+        thread.setContextClassLoader(loader);
+        try {
+            Class<?> factoryClass = Class.forName(DefaultBeanFactory.class.getName(), true, loader);
+            Object factory = factoryClass.getMethod("getInstance").invoke(null);
+            factoryClass.getMethod("refresh").invoke(factory);
+            if ((Boolean) factoryClass.getMethod("isEmpty").invoke(factory)) {
+                throw new IllegalStateException("没有创建任何bean");
+            }
+            return factory;
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    private static byte[] generateInterface(String name) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT,
+                name, null, "java/lang/Object", null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] generateService(String name, String implemented, String serviceName, String dependency, String qualifier) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", new String[]{implemented});
+        AnnotationVisitor service = writer.visitAnnotation(descriptor(Service.class), true);
+        service.visit("value", serviceName);
+        service.visitEnd();
+
+        FieldVisitor field = writer.visitField(Opcodes.ACC_PRIVATE, "dependency", "L" + dependency + ";", null, null);
+        field.visitAnnotation(descriptor(Autowired.class), true).visitEnd();
+        if (qualifier != null) {
+            AnnotationVisitor annotation = field.visitAnnotation(descriptor(Qualifier.class), true);
+            annotation.visit("value", qualifier);
+            annotation.visitEnd();
+        }
+        field.visitEnd();
+
+        addConstructor(writer);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] generateModel(String name) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        writer.visitField(Opcodes.ACC_PRIVATE, "id", "J", null, null).visitEnd();
+        addConstructor(writer);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void addConstructor(ClassWriter writer) {
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(1, 1);
+        constructor.visitEnd();
+    }
+
+    private static String descriptor(Class<?> annotation) {
+        return "L" + annotation.getName().replace('.', '/') + ";";
+    }
+
+    private static void write(File classes, String internalName, byte[] bytes) throws IOException {
+        File file = new File(classes, internalName + ".class");
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 框架类和配置优先从自己的路径加载，每次启动得到一份新的静态状态；其余类交给父加载器
+     */
+    private static class IsolatedClassLoader extends URLClassLoader {
+        IsolatedClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith("com.wu.")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> cls = findLoadedClass(name);
+                if (cls == null) {
+                    try {
+                        cls = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        cls = super.loadClass(name, false);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(cls);
+                }
+                return cls;
+            }
+        }
+
+        @Override
+        public URL getResource(String name) {
+            URL url = findResource(name);
+            return url != null ? url : super.getResource(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            Enumeration<URL> urls = findResources(name);
+            return urls.hasMoreElements() ? urls : super.getResources(name);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ImplementClassLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.wu.test.benchmark;
+
+import com.wu.spring.constants.RequestMethod;
+import com.wu.spring.mvc.Handler;
+import com.wu.spring.mvc.Request;
+import com.wu.spring.mvc.RouteMatch;
+import com.wu.spring.mvc.RouteTrie;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比原先DispatcherServlet线性扫描handlerMapping与RouteTrie的查找开销
+ * 运行方式：执行main方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteLookupBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int routeCount;
+
+    private Map<Request, Handler> handlerMapping;
+    private Map<Request, String> patterns;
+    private RouteTrie routeTrie;
+    private String staticPath;
+    private String variablePath;
+
+    @Setup
+    public void setup() throws Exception {
+        handlerMapping = new HashMap<>();
+        patterns = new HashMap<>();
+        routeTrie = new RouteTrie();
+        Method method = Object.class.getMethod("toString");
+        // 一半为静态路由，一半为带路径变量的路由
+        for (int i = 0; i < routeCount / 2; i++) {
+            register("/module" + i + "/list", new Handler(new Object(), method));
+            register("/module" + i + "/item/{id}", new Handler(new Object(), method));
+        }
+        // 取最后注册的路由作为请求，线性扫描时接近最坏情况
+        int last = routeCount / 2 - 1;
+        staticPath = "/module" + last + "/list";
+        variablePath = "/module" + last + "/item/42";
+    }
+
+    private void register(String url, Handler handler) {
+        Request request = new Request(RequestMethod.GET, url);
+        handlerMapping.put(request, handler);
+        patterns.put(request, url);
+        routeTrie.register(RequestMethod.GET, url, handler);
+    }
+
+    @Benchmark
+    public Object linearScanStatic() {
+        return linearScan(staticPath);
+    }
+
+    @Benchmark
+    public Object linearScanVariable() {
+        return linearScan(variablePath);
+    }
+
+    @Benchmark
+    public RouteMatch trieStatic() {
+        return routeTrie.match(RequestMethod.GET, staticPath);
+    }
+
+    @Benchmark
+    public RouteMatch trieVariable() {
+        return routeTrie.match(RequestMethod.GET, variablePath);
+    }
+
+    /**
+     * 原先的查找方式：先扫描一遍找到handler，再扫描一遍解析路径变量
+     */
+    private Object linearScan(String path) {
+        Request req = new Request(RequestMethod.GET, path.replaceAll("/+", "/"));
+        Handler handler = null;
+        for (Request request : handlerMapping.keySet()) {
+            if (request.equals(req)) {
+                handler = handlerMapping.get(request);
+                break;
+            }
+        }
+        Map<String, String> pathVariableMap = null;
+        for (Request request : handlerMapping.keySet()) {
+            if (request.equals(req)) {
+                pathVariableMap = Request.parsePathVariable(patterns.get(request), path);
+                break;
+            }
+        }
+        return new Object[]{handler, pathVariableMap};
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RouteLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.wu.test.metadata;
+
+import com.wu.mybatis.annotation.Mapper;
+import com.wu.spring.annotation.ioc.Component;
+import com.wu.spring.annotation.ioc.Service;
+import com.wu.spring.annotation.mvc.Controller;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * ClassMetadataReader和按class文件扫描用到的类，只读取编译后的class文件，不会被加载
+ */
+public class ScanFixtures {
+
+    @Retention(RUNTIME)
+    public @interface Tag {
+        String value();
+    }
+
+    @Retention(RUNTIME)
+    public @interface Meta {
+        Tag[] tags();
+
+        Tag single();
+
+        Class<?>[] types();
+
+        RetentionPolicy policy();
+
+        int[] numbers();
+
+        String text();
+    }
+
+    /**
+     * long和double常量在常量池中占两个位置
+     */
+    @Service
+    public static class WithConstants {
+        static final long LONG_VALUE = 1234567890123L;
+        static final double DOUBLE_VALUE = 3.14159;
+        static final long ANOTHER_LONG = -98765432109L;
+        static final float FLOAT_VALUE = 2.5f;
+        static final int INT_VALUE = 123456789;
+        static final String TEXT = "constant";
+
+        public double sum() {
+            return LONG_VALUE + DOUBLE_VALUE + ANOTHER_LONG + FLOAT_VALUE + INT_VALUE + TEXT.length();
+        }
+    }
+
+    /**
+     * 组件注解排在带嵌套注解和数组值的注解之后，跳过元素值出错时读不到
+     */
+    @Meta(tags = {@Tag("a"), @Tag("b")}, single = @Tag("c"), types = {String.class, int[].class},
+            policy = RetentionPolicy.CLASS, numbers = {1, 2, 3}, text = "meta")
+    @Controller
+    public static class NestedValues {
+    }
+
+    @Mapper
+    public interface SomeMapper {
+        String find(long id);
+    }
+
+    /**
+     * 组合注解本身不是组件
+     */
+    @Component
+    @Retention(RUNTIME)
+    public @interface Composed {
+    }
+
+    @Tag("only")
+    public static class OtherAnnotationOnly {
+    }
+
+    /**
+     * 注入接口时要找到没有注解的实现类
+     */
+    @Service
+    public interface GreetingService {
+    }
+
+    public static class DefaultGreeting implements GreetingService {
+    }
+
+    public interface LoudGreeting extends GreetingService {
+    }
+
+    public static class ShoutingGreeting extends OtherAnnotationOnly implements LoudGreeting {
+    }
+
+    @Component
+    public static abstract class AbstractJob implements Runnable {
+    }
+
+    public static class NightlyJob extends AbstractJob {
+        @Override
+        public void run() {
+        }
+    }
+
+    public static class HourlyJob extends NightlyJob {
+    }
+
+    public static class Plain {
+    }
+}
@@ -0,0 +1,128 @@
+package com.wu.test.support;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用的AsyncContext，由测试调用complete()或timeout()触发监听器
+ */
+public class StubAsyncContext implements AsyncContext {
+    private final ServletRequest request;
+    private final ServletResponse response;
+    private final List<AsyncListener> listeners = new ArrayList<>();
+    private boolean completed;
+    private boolean timedOut;
+
+    StubAsyncContext(ServletRequest request, ServletResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 与容器一样先通知onTimeout，监听器都没有结束请求时再结束
+     */
+    public void timeout() throws IOException {
+        List<AsyncListener> current;
+        synchronized (this) {
+            timedOut = true;
+            current = new ArrayList<>(listeners);
+        }
+        for (AsyncListener listener : current) {
+            listener.onTimeout(new AsyncEvent(this, request, response));
+        }
+        synchronized (this) {
+            timedOut = false;
+        }
+        complete();
+    }
+
+    @Override
+    public void complete() {
+        List<AsyncListener> current;
+        synchronized (this) {
+            // 超时回调中结束请求时，与容器一样在全部onTimeout之后才通知onComplete
+            if (completed || timedOut) {
+                return;
+            }
+            completed = true;
+            current = new ArrayList<>(listeners);
+        }
+        for (AsyncListener listener : current) {
+            try {
+                listener.onComplete(new AsyncEvent(this, request, response));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+        return true;
+    }
+
+    @Override
+    public void dispatch() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dispatch(String path) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void start(Runnable run) {
+        run.run();
+    }
+
+    @Override
+    public synchronized void addListener(AsyncListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> clazz) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+    }
+
+    @Override
+    public long getTimeout() {
+        return 0;
+    }
+}
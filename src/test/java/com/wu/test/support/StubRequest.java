@@ -0,0 +1,155 @@
+package com.wu.test.support;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 测试用的HttpServletRequest，只实现框架用到的方法，其余返回默认值
+ */
+public class StubRequest implements InvocationHandler {
+    public String method = "GET";
+    public String requestURI = "/";
+    public final Map<String, String[]> parameters = new HashMap<>();
+    public final Map<String, String> headers = new HashMap<>();
+    public final Map<String, Object> attributes = new HashMap<>();
+    public byte[] body;
+    // startAsync后的异步上下文
+    public StubAsyncContext asyncContext;
+
+    public HttpServletRequest proxy() {
+        return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, this);
+    }
+
+    public StubRequest param(String name, String... values) {
+        parameters.put(name, values);
+        return this;
+    }
+
+    public StubRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+        switch (m.getName()) {
+            case "getMethod":
+                return method;
+            case "getRequestURI":
+                return requestURI;
+            case "getContextPath":
+                return "";
+            case "getParameterValues":
+                return parameters.get(args[0]);
+            case "getParameter": {
+                String[] values = parameters.get(args[0]);
+                return values == null ? null : values[0];
+            }
+            case "getHeader":
+                return headers.get(args[0]);
+            case "getDateHeader":
+                return parseDate(headers.get(args[0]));
+            case "getAttribute":
+                return attributes.get(args[0]);
+            case "setAttribute":
+                attributes.put((String) args[0], args[1]);
+                return null;
+            case "removeAttribute":
+                attributes.remove(args[0]);
+                return null;
+            case "getContentLength":
+                return body == null ? -1 : body.length;
+            case "getContentLengthLong":
+                return body == null ? -1L : (long) body.length;
+            case "getInputStream":
+                return new StubInputStream(body == null ? new byte[0] : body);
+            case "startAsync":
+                if (args == null || args.length == 0) {
+                    throw new UnsupportedOperationException("使用startAsync(request, response)");
+                }
+                asyncContext = new StubAsyncContext((ServletRequest) args[0], (ServletResponse) args[1]);
+                return asyncContext;
+            case "isAsyncStarted":
+                return asyncContext != null && !asyncContext.isCompleted();
+            case "getAsyncContext":
+                return asyncContext;
+            case "toString":
+                return "StubRequest " + method + " " + requestURI;
+            default:
+                return defaultValue(m.getReturnType());
+        }
+    }
+
+    /**
+     * 与Servlet规范一致：没有该请求头返回-1，格式错误抛出IllegalArgumentException
+     */
+    private static long parseDate(String value) {
+        if (value == null) {
+            return -1L;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(value);
+        }
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static class StubInputStream extends ServletInputStream {
+        private final ByteArrayInputStream in;
+
+        StubInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+    }
+}
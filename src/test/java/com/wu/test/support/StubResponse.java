@@ -0,0 +1,114 @@
+package com.wu.test.support;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 测试用的HttpServletResponse，记录状态码、响应头和写出的字节
+ */
+public class StubResponse implements InvocationHandler {
+    public int status = HttpServletResponse.SC_OK;
+    public final Map<String, String> headers = new HashMap<>();
+    public String contentType;
+    public long contentLength = -1;
+    public final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private PrintWriter writer;
+
+    public HttpServletResponse proxy() {
+        return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, this);
+    }
+
+    public String bodyAsString() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+        switch (m.getName()) {
+            case "setStatus":
+            case "sendError":
+                status = (Integer) args[0];
+                return null;
+            case "getStatus":
+                return status;
+            case "setHeader":
+            case "addHeader":
+                headers.put((String) args[0], (String) args[1]);
+                return null;
+            case "setDateHeader":
+            case "addDateHeader":
+            case "setIntHeader":
+                headers.put((String) args[0], String.valueOf(args[1]));
+                return null;
+            case "getHeader":
+                return headers.get(args[0]);
+            case "containsHeader":
+                return headers.containsKey(args[0]);
+            case "setContentType":
+                contentType = (String) args[0];
+                return null;
+            case "getContentType":
+                return contentType;
+            case "setContentLength":
+                contentLength = (Integer) args[0];
+                return null;
+            case "setContentLengthLong":
+                contentLength = (Long) args[0];
+                return null;
+            case "getOutputStream":
+                return new StubOutputStream(body);
+            case "getWriter":
+                if (writer == null) {
+                    writer = new PrintWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+                }
+                return writer;
+            case "isCommitted":
+                return false;
+            case "toString":
+                return "StubResponse " + status;
+            default:
+                return StubRequest.defaultValue(m.getReturnType());
+        }
+    }
+
+    private static class StubOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream out;
+
+        StubOutputStream(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}